@@ -0,0 +1,75 @@
+import airport.bench.BookingTarget;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * {@link BookingTarget} backed by {@link DatabaseHandler}
+ */
+public class DatabaseHandlerTarget implements BookingTarget {
+    private static final int IMPORT_CHUNK_SIZE = 5000;
+
+    private DatabaseHandler db;
+
+    @Override
+    public void connect(String url) {
+        db = new DatabaseHandler(url, DatabaseHandler.DEFAULT_READ_CONNECTIONS);
+    }
+
+    @Override
+    public void addFlights(int count, int capacity) {
+        for (int i = 1; i <= count; i++) {
+            db.addFlight("BF" + i, "SRC" + (i % 50), "DST" + (i % 37), capacity);
+        }
+    }
+
+    @Override
+    public int importPassengers(int first, int count, int flights, boolean bulkLoad) {
+        Iterator<BookingRequest> rows = IntStream.range(first, first + count)
+                .mapToObj(i -> new BookingRequest("Passenger " + i, "P" + i, "C" + i, "p" + i + "@example.com", 1 + i % flights))
+                .iterator();
+        return db.addPassengersBatch(rows, IMPORT_CHUNK_SIZE, bulkLoad).getAccepted();
+    }
+
+    @Override
+    public boolean addPassenger(String name, String passport, String contact, String email, int flightId) {
+        return db.addPassenger(name, passport, contact, email, flightId);
+    }
+
+    @Override
+    public List<String[]> getAllFlights() {
+        return db.getAllFlights();
+    }
+
+    @Override
+    public List<String[]> getPassengersWithFlights() {
+        return db.getPassengersWithFlights();
+    }
+
+    @Override
+    public List<String[]> getPassengersByFlightId(int flightId) {
+        return db.getPassengersByFlightId(flightId);
+    }
+
+    @Override
+    public List<String[]> getAllPassengers() {
+        return db.getAllPassengers();
+    }
+
+    @Override
+    public void enableReadModel() {
+        db.enableReadModel();
+    }
+
+    @Override
+    public Map<Integer, Integer> countBookingsPerFlight(int afterPassengerId, int upToPassengerId) {
+        return db.countBookingsPerFlight(afterPassengerId, upToPassengerId);
+    }
+
+    @Override
+    public void close() {
+        db.closeConnection();
+    }
+}
@@ -0,0 +1,95 @@
+package airport.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Booking and listing hot paths against generated datasets.
+ *
+ * Every trial gets its own copy of the dataset on a temp file, so numbers are comparable
+ * across changes as long as {@link Datasets#VERSION} is unchanged.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookingBenchmark {
+    @Param({ "10000", "100000", "1000000" })
+    public int passengers;
+
+    private Path file;
+    private BookingTarget target;
+    private int flights;
+    private final AtomicLong nextPassenger = new AtomicLong();
+
+    /**
+     * Per-thread source of flight ids, seeded so every run asks for the same sequence
+     */
+    @State(Scope.Thread)
+    public static class Flights {
+        private SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            random = new SplittableRandom(42);
+        }
+
+        int next(int flights) {
+            return 1 + random.nextInt(flights);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        file = Datasets.freshCopy(passengers);
+        target = BookingTarget.open(Datasets.url(file));
+        flights = Datasets.flightsFor(passengers);
+        nextPassenger.set(passengers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        target.close();
+        Datasets.delete(file);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean addPassenger(Flights flightIds) {
+        return book(flightIds);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean addPassengerContended(Flights flightIds) {
+        return book(flightIds);
+    }
+
+    private boolean book(Flights flightIds) {
+        long n = nextPassenger.getAndIncrement();
+        return target.addPassenger("Passenger " + n, "P" + n, "C" + n, "p" + n + "@example.com", flightIds.next(flights));
+    }
+
+    @Benchmark
+    public List<String[]> getAllFlights() {
+        return target.getAllFlights();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<String[]> getPassengersWithFlights() {
+        return target.getPassengersWithFlights();
+    }
+
+    @Benchmark
+    public List<String[]> getPassengersByFlightId(Flights flightIds) {
+        return target.getPassengersByFlightId(flightIds.next(flights));
+    }
+}
@@ -0,0 +1,58 @@
+package airport.bench;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The operations the benchmarks drive, implemented by {@code DatabaseHandlerTarget}.
+ *
+ * The application classes live in the default package, which a named package cannot import,
+ * and JMH will not generate code for benchmarks in the default package. The adapter sits in the
+ * default package next to {@code DatabaseHandler} and is loaded by name through {@link #open}.
+ */
+public interface BookingTarget extends AutoCloseable {
+    String IMPLEMENTATION = "DatabaseHandlerTarget";
+
+    /**
+     * Opens a handler on {@code url}, creating the schema if the database is new
+     */
+    static BookingTarget open(String url) {
+        try {
+            BookingTarget target = (BookingTarget) Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+            target.connect(url);
+            return target;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot load " + IMPLEMENTATION, e);
+        }
+    }
+
+    void connect(String url);
+
+    void addFlights(int count, int capacity);
+
+    /**
+     * Imports {@code count} generated passengers numbered from {@code first}, spread round-robin
+     * over flights {@code 1..flights}, and returns how many were accepted
+     */
+    int importPassengers(int first, int count, int flights, boolean bulkLoad);
+
+    boolean addPassenger(String name, String passport, String contact, String email, int flightId);
+
+    List<String[]> getAllFlights();
+
+    List<String[]> getPassengersWithFlights();
+
+    List<String[]> getPassengersByFlightId(int flightId);
+
+    List<String[]> getAllPassengers();
+
+    /**
+     * Loads the columnar read model, after which {@link #countBookingsPerFlight} is served from it
+     */
+    void enableReadModel();
+
+    Map<Integer, Integer> countBookingsPerFlight(int afterPassengerId, int upToPassengerId);
+
+    @Override
+    void close();
+}
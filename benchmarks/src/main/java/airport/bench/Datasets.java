@@ -0,0 +1,99 @@
+package airport.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Generated benchmark databases.
+ *
+ * Each size is built once into {@code java.io.tmpdir/airport-bench} and every trial works on a
+ * fresh copy, so all runs start from byte-identical data and writes made by one trial never
+ * leak into the next. Bump {@link #VERSION} when the generated data or the schema changes.
+ */
+public final class Datasets {
+    static final int VERSION = 1;
+    static final int PASSENGERS_PER_FLIGHT = 100;
+    /** Far more seats than the dataset uses, so booking benchmarks never run into sold-out flights */
+    static final int FLIGHT_CAPACITY = 1_000_000;
+
+    private static final Path ROOT = Paths.get(System.getProperty("java.io.tmpdir"), "airport-bench");
+
+    private Datasets() {
+    }
+
+    public static int flightsFor(int passengers) {
+        return Math.max(1, passengers / PASSENGERS_PER_FLIGHT);
+    }
+
+    /**
+     * Copies the template for {@code passengers} to a new temp file and returns its path
+     */
+    public static Path freshCopy(int passengers) {
+        try {
+            Path template = template(passengers);
+            Path copy = Files.createTempFile(ROOT, "run-" + passengers + "-", ".db");
+            Files.copy(template, copy, StandardCopyOption.REPLACE_EXISTING);
+            return copy;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * An empty database with the current schema and no flights
+     */
+    public static Path emptyDatabase() {
+        try {
+            Files.createDirectories(ROOT);
+            Path file = Files.createTempFile(ROOT, "empty-", ".db");
+            Files.delete(file);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String url(Path file) {
+        return "jdbc:sqlite:" + file.toAbsolutePath();
+    }
+
+    /**
+     * Deletes a database file together with its WAL and shared-memory files
+     */
+    public static void delete(Path file) {
+        for (String suffix : new String[] { "", "-wal", "-shm" }) {
+            try {
+                Files.deleteIfExists(Paths.get(file + suffix));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static synchronized Path template(int passengers) throws IOException {
+        Files.createDirectories(ROOT);
+        Path template = ROOT.resolve("passengers-" + passengers + "-v" + VERSION + ".db");
+        if (Files.exists(template)) {
+            return template;
+        }
+
+        Path building = Files.createTempFile(ROOT, "building-" + passengers + "-", ".db");
+        Files.delete(building);
+        int flights = flightsFor(passengers);
+        try (BookingTarget target = BookingTarget.open(url(building))) {
+            target.addFlights(flights, FLIGHT_CAPACITY);
+            int accepted = target.importPassengers(0, passengers, flights, true);
+            if (accepted != passengers) {
+                throw new IllegalStateException("Generated " + accepted + " of " + passengers + " passengers");
+            }
+        }
+        // Closing the last connection checkpoints the WAL, so the main file is complete on its own
+        Files.move(building, template, StandardCopyOption.ATOMIC_MOVE);
+        delete(building);
+        return template;
+    }
+}
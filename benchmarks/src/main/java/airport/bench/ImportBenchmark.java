@@ -0,0 +1,47 @@
+package airport.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch import into an empty database, with and without the bulk-load path that recounts
+ * seats once at the end instead of per row, at 100k and 1M passengers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImportBenchmark {
+    private static final int FLIGHTS = 1000;
+
+    @Param({ "100000", "1000000" })
+    public int rows;
+
+    @Param({ "false", "true" })
+    public boolean bulkLoad;
+
+    private Path file;
+    private BookingTarget target;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        file = Datasets.emptyDatabase();
+        target = BookingTarget.open(Datasets.url(file));
+        target.addFlights(FLIGHTS, Datasets.FLIGHT_CAPACITY);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        target.close();
+        Datasets.delete(file);
+    }
+
+    @Benchmark
+    public int importPassengers() {
+        return target.importPassengers(0, rows, FLIGHTS, bulkLoad);
+    }
+}
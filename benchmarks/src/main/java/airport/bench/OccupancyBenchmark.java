@@ -0,0 +1,87 @@
+package airport.bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Passengers per flight over a whole dataset, counted three ways: from the {@code String[]} rows
+ * of {@code getAllPassengers}, with the SQL group-by, and from the columnar read model.
+ *
+ * Setup also prints the heap each in-memory form retains, measured as the change in used heap
+ * after a full collection, so run with {@code -prof gc} to compare allocation per count as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OccupancyBenchmark {
+    @Param({ "100000", "1000000" })
+    public int passengers;
+
+    private Path file;
+    private BookingTarget sql;
+    private BookingTarget readModel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        file = Datasets.freshCopy(passengers);
+        sql = BookingTarget.open(Datasets.url(file));
+        readModel = BookingTarget.open(Datasets.url(file));
+
+        long before = usedHeap();
+        List<String[]> rows = sql.getAllPassengers();
+        long rowBytes = usedHeap() - before;
+        // Checked after measuring, so the rows are still reachable while their heap is counted
+        if (rows.size() != passengers) {
+            throw new IllegalStateException("Read " + rows.size() + " of " + passengers + " passengers");
+        }
+        rows = null;
+
+        before = usedHeap();
+        readModel.enableReadModel();
+        long columnBytes = usedHeap() - before;
+        System.out.printf("%nRetained heap for %d passengers: String[] rows %d MB, read model %d MB%n",
+                passengers, rowBytes >> 20, columnBytes >> 20);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sql.close();
+        readModel.close();
+        Datasets.delete(file);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> stringRows() {
+        Map<Integer, Integer> bookings = new HashMap<>();
+        for (String[] row : sql.getAllPassengers()) {
+            bookings.merge(Integer.parseInt(row[5]), 1, Integer::sum);
+        }
+        return bookings;
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> sqlGroupBy() {
+        return sql.countBookingsPerFlight(0, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public Map<Integer, Integer> columnScan() {
+        return readModel.countBookingsPerFlight(0, Integer.MAX_VALUE);
+    }
+}
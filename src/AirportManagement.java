@@ -1,31 +1,73 @@
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
 
+/**
+ * Registry of airports, looked up by id or by code in constant time.
+ * Codes are matched ignoring case; an airport's code should not be changed while it is registered.
+ */
 public class AirportManagement {
-    private List<Airport> airports;
+    // Codes name shard files, so nothing that could reach outside the data directory gets through
+    private static final Pattern CODE = Pattern.compile("[A-Z0-9]{3,4}");
 
-    public AirportManagement() {
-        this.airports = new ArrayList<>();
+    private final Map<Integer, Airport> airportsById = new LinkedHashMap<>();
+    private final Map<String, Airport> airportsByCode = new HashMap<>();
+
+    /**
+     * Registers {@code airport}, replacing any airport with the same id or code
+     *
+     * @throws IllegalArgumentException unless its code is 3 or 4 letters or digits
+     */
+    public synchronized void addAirport(Airport airport) {
+        Airport sameCode = airportsByCode.get(requireValidCode(airport.getCode()));
+        if (sameCode != null) {
+            airportsById.remove(sameCode.getAirportId());
+        }
+        Airport sameId = airportsById.put(airport.getAirportId(), airport);
+        if (sameId != null) {
+            airportsByCode.remove(normalizeCode(sameId.getCode()));
+        }
+        airportsByCode.put(normalizeCode(airport.getCode()), airport);
     }
 
-    public void addAirport(Airport airport) {
-        airports.add(airport);
+    public synchronized void removeAirport(int airportId) {
+        Airport removed = airportsById.remove(airportId);
+        if (removed != null) {
+            airportsByCode.remove(normalizeCode(removed.getCode()));
+        }
     }
 
-    public void removeAirport(int airportId) {
-        airports.removeIf(airport -> airport.getAirportId() == airportId);
+    public synchronized Airport getAirportById(int airportId) {
+        return airportsById.get(airportId);
     }
 
-    public Airport getAirportById(int airportId) {
-        for (Airport airport : airports) {
-            if (airport.getAirportId() == airportId) {
-                return airport;
-            }
-        }
-        return null;
+    /**
+     * The airport with {@code code}, or null if none is registered
+     */
+    public synchronized Airport getAirportByCode(String code) {
+        return airportsByCode.get(normalizeCode(code));
     }
 
-    public List<Airport> getAllAirports() {
-        return new ArrayList<>(airports);
+    public synchronized List<Airport> getAllAirports() {
+        return new ArrayList<>(airportsById.values());
+    }
+
+    static String normalizeCode(String code) {
+        return code == null ? "" : code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * {@code code} normalized, after checking it is 3 or 4 letters or digits
+     */
+    static String requireValidCode(String code) {
+        String normalized = normalizeCode(code);
+        if (!CODE.matcher(normalized).matches()) {
+            throw new IllegalArgumentException("Airport code must be 3 or 4 letters or digits: " + code);
+        }
+        return normalized;
     }
 }
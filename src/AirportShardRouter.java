@@ -0,0 +1,176 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Flight and passenger storage split into one SQLite file per airport, with each shard a
+ * {@link DatabaseHandler} of its own.
+ *
+ * A flight lives in the shard of the airport it departs from, so its {@code source} is the
+ * airport code, and its passengers live beside it. Flight ids are only unique within a shard, so
+ * a flight is addressed by airport code and id. Writes to different airports never share a
+ * database lock; queries that span airports fan out to every shard in parallel and merge the
+ * results. Passport, contact and email uniqueness is enforced per airport.
+ *
+ * Shards are opened on first use as {@code airport-CODE.db} in the data directory.
+ */
+public class AirportShardRouter {
+    private static final int FALLBACK_FANOUT_THREADS = 8;
+
+    private final AirportManagement airports;
+    private final File dataDirectory;
+    private final int readConnections;
+    private final Map<String, DatabaseHandler> shards = new ConcurrentHashMap<>();
+    private final ExecutorService fanOut = TaskExecutors.newBlockingIoExecutor("shard-fanout", FALLBACK_FANOUT_THREADS);
+
+    public AirportShardRouter(AirportManagement airports, File dataDirectory, int readConnections) {
+        this.airports = airports;
+        this.dataDirectory = dataDirectory;
+        this.readConnections = readConnections;
+        dataDirectory.mkdirs();
+    }
+
+    public AirportManagement getAirports() {
+        return airports;
+    }
+
+    /**
+     * The shard for {@code airportCode}, opening it on first use
+     *
+     * @throws IllegalArgumentException if no airport has that code, or its code has since been
+     *         changed to one that is not 3 or 4 letters or digits
+     */
+    public DatabaseHandler shard(String airportCode) {
+        Airport airport = airports.getAirportByCode(airportCode);
+        if (airport == null) {
+            throw new IllegalArgumentException("Unknown airport: " + airportCode);
+        }
+        // Checked again here because the code names the file, and Airport.setCode can change it
+        String code = AirportManagement.requireValidCode(airport.getCode());
+        return shards.computeIfAbsent(code, c -> new DatabaseHandler(
+                "jdbc:sqlite:" + new File(dataDirectory, "airport-" + c + ".db").getAbsolutePath(), readConnections));
+    }
+
+    /**
+     * The shard of every registered airport, in airport order, opening any not yet open
+     */
+    public List<DatabaseHandler> getShards() {
+        List<DatabaseHandler> all = new ArrayList<>();
+        for (Airport airport : airports.getAllAirports()) {
+            all.add(shard(airport.getCode()));
+        }
+        return all;
+    }
+
+    /**
+     * Unregisters an airport and closes its shard; the database file is kept
+     */
+    public void removeAirport(int airportId) {
+        Airport airport = airports.getAirportById(airportId);
+        if (airport == null) {
+            return;
+        }
+        airports.removeAirport(airportId);
+        DatabaseHandler shard = shards.remove(AirportManagement.normalizeCode(airport.getCode()));
+        if (shard != null) {
+            shard.closeConnection();
+        }
+    }
+
+    /**
+     * Adds a flight to the shard of its source airport, or returns null if it could not be stored
+     *
+     * @throws IllegalArgumentException if the source is not a registered airport
+     */
+    public FlightRecord addFlight(String name, String source, String destination, int capacity) {
+        return shard(source).addFlight(name, AirportManagement.normalizeCode(source), destination, capacity);
+    }
+
+    /**
+     * Books a passenger on flight {@code flightId} departing from {@code airportCode}
+     */
+    public BookingResult bookPassenger(String airportCode, String name, String passport, String contact,
+                                       String email, int flightId) {
+        if (airports.getAirportByCode(airportCode) == null) {
+            return BookingResult.UNKNOWN_FLIGHT;
+        }
+        return shard(airportCode).bookPassenger(name, passport, contact, email, flightId);
+    }
+
+    public FlightRecord getFlight(String airportCode, int flightId) {
+        return airports.getAirportByCode(airportCode) == null ? null : shard(airportCode).getFlight(flightId);
+    }
+
+    /**
+     * Flights on a route; only the source airport's shard is asked
+     */
+    public List<FlightRecord> searchRoutes(String source, String destination, int minSeats) {
+        if (airports.getAirportByCode(source) == null) {
+            return new ArrayList<>();
+        }
+        return shard(source).searchRoutes(source, destination, minSeats);
+    }
+
+    /**
+     * Every flight of every airport, read from all shards in parallel
+     */
+    public List<FlightRecord> listFlights() {
+        List<FlightRecord> flights = new ArrayList<>();
+        for (List<FlightRecord> shardFlights : fanOut(DatabaseHandler::listFlights)) {
+            flights.addAll(shardFlights);
+        }
+        return flights;
+    }
+
+    /**
+     * Passengers across all airports, counted in parallel
+     */
+    public int countPassengers() {
+        int total = 0;
+        for (int count : fanOut(DatabaseHandler::countPassengers)) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Occupancy across every airport, counted on all shards in parallel; see {@link OccupancyReporter#run}
+     */
+    public CompletableFuture<OccupancyReport> occupancyReport(int topN, Consumer<OccupancyReport> progress) {
+        return new OccupancyReporter(getShards(), OccupancyReporter.DEFAULT_RANGES_PER_DATABASE, fanOut).run(topN, progress);
+    }
+
+    /**
+     * Runs {@code query} against every airport's shard at once and returns the results in
+     * airport order. A failing shard fails the whole call.
+     */
+    public <T> List<T> fanOut(Function<DatabaseHandler, T> query) {
+        List<CompletableFuture<T>> running = new ArrayList<>();
+        for (Airport airport : airports.getAllAirports()) {
+            DatabaseHandler shard = shard(airport.getCode());
+            running.add(CompletableFuture.supplyAsync(() -> query.apply(shard), fanOut));
+        }
+        List<T> results = new ArrayList<>(running.size());
+        for (CompletableFuture<T> result : running) {
+            results.add(result.join());
+        }
+        return results;
+    }
+
+    /**
+     * Closes every open shard and stops the fan-out threads
+     */
+    public void close() {
+        fanOut.shutdown();
+        for (DatabaseHandler shard : shards.values()) {
+            shard.closeConnection();
+        }
+        shards.clear();
+    }
+}
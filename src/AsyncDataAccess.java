@@ -0,0 +1,178 @@
+import javax.swing.SwingUtilities;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs database calls away from the Swing Event Dispatch Thread and hands the results back to it.
+ *
+ * Every query is submitted under a key naming what it feeds (a table, a combo box). Submitting a
+ * new query under a key that already has one running cancels the old one, and results of a
+ * cancelled query are never delivered, so a slow stale query can't overwrite a newer view.
+ * Writes go through {@link #write} instead, which never cancels anything.
+ */
+public class AsyncDataAccess {
+    /**
+     * Told on the EDT whenever the number of running queries goes from zero to some or back
+     */
+    public interface BusyListener {
+        void busyChanged(boolean busy, int running);
+    }
+
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<String, CompletableFuture<?>> latestByKey = new ConcurrentHashMap<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final List<BusyListener> busyListeners = new CopyOnWriteArrayList<>();
+
+    public AsyncDataAccess() {
+        this(TaskExecutors.newBlockingIoExecutor("db-query", 4));
+    }
+
+    public AsyncDataAccess(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public void addBusyListener(BusyListener listener) {
+        busyListeners.add(listener);
+    }
+
+    /**
+     * Runs {@code query} in the background, cancelling any query still running under {@code key}.
+     * The returned future completes on the worker thread.
+     */
+    public <T> CompletableFuture<T> submit(String key, Callable<T> query) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicBoolean counted = new AtomicBoolean(true);
+        started();
+        Future<?> task = executor.submit(() -> {
+            try {
+                if (!result.isDone()) {
+                    result.complete(query.call());
+                }
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            } finally {
+                if (counted.compareAndSet(true, false)) {
+                    finished();
+                }
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+                if (counted.compareAndSet(true, false)) {
+                    finished();
+                }
+            }
+            latestByKey.remove(key, result);
+        });
+
+        CompletableFuture<?> previous = latestByKey.put(key, result);
+        if (previous != null) {
+            previous.cancel(true);
+        }
+        return result;
+    }
+
+    /**
+     * Like {@link #submit(String, Callable)} but delivers the result, or the failure, on the EDT.
+     * Nothing is delivered if the query was superseded.
+     */
+    public <T> CompletableFuture<T> load(String key, Callable<T> query, Consumer<? super T> onResult,
+                                         Consumer<? super Throwable> onError) {
+        CompletableFuture<T> result = submit(key, query);
+        result.whenComplete((value, error) -> {
+            Throwable cause = unwrap(error);
+            if (cause instanceof CancellationException) {
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (cause == null) {
+                    onResult.accept(value);
+                } else if (onError != null) {
+                    onError.accept(cause);
+                }
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Runs a write in the background and delivers its outcome, or its failure, on the EDT. Writes
+     * are never superseded or cancelled, unlike queries, so every one is reported back.
+     */
+    public <T> CompletableFuture<T> write(Callable<T> action, Consumer<? super T> onResult,
+                                          Consumer<? super Throwable> onError) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        started();
+        executor.execute(() -> {
+            try {
+                result.complete(action.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            } finally {
+                finished();
+            }
+        });
+        result.whenComplete((value, error) -> SwingUtilities.invokeLater(() -> {
+            if (error == null) {
+                onResult.accept(value);
+            } else if (onError != null) {
+                onError.accept(unwrap(error));
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * Cancels the query running under {@code key}, if any
+     */
+    public void cancel(String key) {
+        CompletableFuture<?> query = latestByKey.remove(key);
+        if (query != null) {
+            query.cancel(true);
+        }
+    }
+
+    public boolean isBusy() {
+        return running.get() > 0;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void started() {
+        if (running.incrementAndGet() == 1) {
+            notifyBusy();
+        }
+    }
+
+    private void finished() {
+        if (running.decrementAndGet() == 0) {
+            notifyBusy();
+        }
+    }
+
+    private void notifyBusy() {
+        SwingUtilities.invokeLater(() -> {
+            int now = running.get();
+            for (BusyListener listener : busyListeners) {
+                listener.busyChanged(now > 0, now);
+            }
+        });
+    }
+
+    static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.Arrays;
+
+/**
+ * Per-row outcome of a batch passenger import.
+ *
+ * Rows are numbered from 0 in the order they were read. Statuses are kept in a byte array rather
+ * than one object per row, so a report for a million-row manifest stays around a megabyte.
+ */
+public class BatchImportReport {
+    public enum Status {
+        ACCEPTED, DUPLICATE, NO_SEAT, UNKNOWN_FLIGHT, ERROR
+    }
+
+    private static final Status[] STATUSES = Status.values();
+
+    private byte[] statuses = new byte[1024];
+    private final int[] counts = new int[STATUSES.length];
+    private int rowCount;
+
+    void record(int row, Status status) {
+        if (row >= statuses.length) {
+            statuses = Arrays.copyOf(statuses, Math.max(row + 1, statuses.length * 2));
+        }
+        statuses[row] = (byte) status.ordinal();
+        counts[status.ordinal()]++;
+        rowCount = Math.max(rowCount, row + 1);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public Status getStatus(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+        }
+        return STATUSES[statuses[row]];
+    }
+
+    public int count(Status status) {
+        return counts[status.ordinal()];
+    }
+
+    public int getAccepted() { return count(Status.ACCEPTED); }
+    public int getDuplicates() { return count(Status.DUPLICATE); }
+    public int getNoSeat() { return count(Status.NO_SEAT); }
+
+    /**
+     * Row numbers that ended with the given status, in input order
+     */
+    public int[] rowsWith(Status status) {
+        int[] rows = new int[count(status)];
+        int n = 0;
+        for (int i = 0; i < rowCount && n < rows.length; i++) {
+            if (statuses[i] == status.ordinal()) {
+                rows[n++] = i;
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Imported ").append(rowCount).append(" rows:");
+        for (Status status : STATUSES) {
+            sb.append(' ').append(status).append('=').append(counts[status.ordinal()]);
+        }
+        return sb.toString();
+    }
+}
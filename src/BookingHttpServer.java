@@ -0,0 +1,340 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Embedded HTTP endpoint for a {@link BookingService}, built on the JDK's own {@link HttpServer}.
+ *
+ * Requests run on virtual threads where the runtime has them (a fixed pool otherwise), so a slow
+ * booking never holds up other clients. Bodies are form-encoded and responses are JSON:
+ *
+ * <pre>
+ * GET  /flights                         every flight
+ * GET  /flights/{id}                    one flight
+ * GET  /flights/{id}/passengers         passengers booked on a flight
+ * GET  /passengers?after=0&amp;limit=100    a page of passengers in id order
+ * GET  /passengers?q=ann&amp;limit=20        passengers by name, passport or email prefix
+ * GET  /routes?source=DEL&amp;destination=BOM&amp;minSeats=1   flights on a route with seats left
+ * POST /flights     name, source, destination, capacity
+ * POST /bookings    name, passport, contact, email, flightId
+ * GET  /metrics                         the handler's metrics
+ * </pre>
+ *
+ * It listens on the loopback interface only unless a host is given, because bookings are not
+ * authenticated. Run it on its own with
+ * {@code java BookingHttpServer [port] [jdbc-url or journal:dir] [host]}; a host of {@code 0.0.0.0}
+ * exposes it on every interface.
+ */
+public class BookingHttpServer {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int MAX_PAGE = 1000;
+    private static final int FALLBACK_THREADS = 32;
+
+    private final BookingService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Serves on the loopback interface only
+     */
+    public BookingHttpServer(BookingService service, int port) throws IOException {
+        this(service, null, port);
+    }
+
+    /**
+     * Serves on the interface that {@code host} resolves to, or on loopback when host is null
+     */
+    public BookingHttpServer(BookingService service, String host, int port) throws IOException {
+        this.service = service;
+        InetAddress address = host == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(host);
+        this.server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        this.executor = TaskExecutors.newBlockingIoExecutor("booking-http", FALLBACK_THREADS);
+        server.setExecutor(executor);
+        server.createContext("/flights", this::handleFlights);
+        server.createContext("/passengers", this::handlePassengers);
+        server.createContext("/routes", this::handleRoutes);
+        server.createContext("/bookings", this::handleBookings);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        String url = args.length > 1 ? args[1] : DatabaseHandler.DEFAULT_URL;
+        String host = args.length > 2 ? args[2] : null;
+        BookingStorage db = BookingStorage.open(url);
+        BookingHttpServer http = new BookingHttpServer(new BookingService(db), host, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            http.stop();
+            db.closeConnection();
+        }));
+        http.start();
+        System.out.println("Booking API listening on http://" + http.getHost() + ":" + http.getPort() + "/");
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, gives running ones a second to finish and shuts the executor down
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String getHost() {
+        return server.getAddress().getAddress().getHostAddress();
+    }
+
+    private void handleFlights(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = pathAfter(exchange, "/flights");
+            String method = exchange.getRequestMethod();
+            if (path.length == 0 && method.equals("GET")) {
+                StringBuilder json = new StringBuilder("[");
+                for (FlightRecord flight : service.listFlights()) {
+                    appendFlight(json.length() > 1 ? json.append(',') : json, flight);
+                }
+                send(exchange, 200, json.append(']').toString());
+            } else if (path.length == 0 && method.equals("POST")) {
+                Map<String, String> form = readForm(exchange);
+                FlightRecord flight = service.addFlight(form.get("name"), form.get("source"), form.get("destination"),
+                        parseInt(form.get("capacity"), BookingService.MIN_CAPACITY));
+                send(exchange, 201, appendFlight(new StringBuilder(), flight).toString());
+            } else if (path.length == 1 && method.equals("GET")) {
+                FlightRecord flight = service.getFlight(Integer.parseInt(path[0]));
+                if (flight == null) {
+                    sendError(exchange, 404, "No flight " + path[0]);
+                } else {
+                    send(exchange, 200, appendFlight(new StringBuilder(), flight).toString());
+                }
+            } else if (path.length == 2 && path[1].equals("passengers") && method.equals("GET")) {
+                StringBuilder json = new StringBuilder("[");
+                for (String[] row : service.listPassengersOnFlight(Integer.parseInt(path[0]))) {
+                    (json.length() > 1 ? json.append(',') : json).append("{\"name\":").append(quote(row[0]))
+                            .append(",\"passportNumber\":").append(quote(row[1]))
+                            .append(",\"contactNumber\":").append(quote(row[2]))
+                            .append(",\"email\":").append(quote(row[3])).append('}');
+                }
+                send(exchange, 200, json.append(']').toString());
+            } else {
+                sendError(exchange, 404, "Not found");
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private void handlePassengers(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET") || pathAfter(exchange, "/passengers").length != 0) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+            Map<String, String> query = parseForm(exchange.getRequestURI().getRawQuery());
+            int after = parseInt(query.get("after"), 0);
+            int limit = Math.min(Math.max(1, parseInt(query.get("limit"), 100)), MAX_PAGE);
+            List<PassengerRecord> passengers = query.containsKey("q")
+                    ? service.searchPassengers(query.get("q"), limit)
+                    : service.listPassengers(after, limit);
+            StringBuilder json = new StringBuilder("[");
+            for (PassengerRecord passenger : passengers) {
+                (json.length() > 1 ? json.append(',') : json).append("{\"passengerId\":").append(passenger.getPassengerId())
+                        .append(",\"name\":").append(quote(passenger.getName()))
+                        .append(",\"passportNumber\":").append(quote(passenger.getPassportNumber()))
+                        .append(",\"contactNumber\":").append(quote(passenger.getContactNumber()))
+                        .append(",\"email\":").append(quote(passenger.getEmail()))
+                        .append(",\"flightId\":").append(passenger.getFlightId()).append('}');
+            }
+            send(exchange, 200, json.append(']').toString());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private void handleRoutes(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET") || pathAfter(exchange, "/routes").length != 0) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+            Map<String, String> query = parseForm(exchange.getRequestURI().getRawQuery());
+            StringBuilder json = new StringBuilder("[");
+            for (FlightRecord flight : service.searchRoutes(query.get("source"), query.get("destination"),
+                    parseInt(query.get("minSeats"), 1))) {
+                appendFlight(json.length() > 1 ? json.append(',') : json, flight);
+            }
+            send(exchange, 200, json.append(']').toString());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private void handleBookings(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST") || pathAfter(exchange, "/bookings").length != 0) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+            Map<String, String> form = readForm(exchange);
+            BookingRequest request = new BookingRequest(form.get("name"), form.get("passport"), form.get("contact"),
+                    form.get("email"), parseInt(form.get("flightId"), 0));
+            BookingResult result = service.bookAsync(request).join();
+            send(exchange, statusOf(result), "{\"result\":" + quote(result.name()) + ",\"message\":"
+                    + quote(result.getMessage()) + "}");
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            sendError(exchange, 500, e.getMessage());
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        send(exchange, 200, service.getDatabase().getMetrics().toJson());
+    }
+
+    static int statusOf(BookingResult result) {
+        switch (result) {
+            case BOOKED: return 201;
+            case INVALID_REQUEST: return 400;
+            case UNKNOWN_FLIGHT: return 404;
+            case NO_SEATS:
+            case DUPLICATE_PASSPORT:
+            case DUPLICATE_CONTACT:
+            case DUPLICATE_EMAIL: return 409;
+            default: return 500;
+        }
+    }
+
+    /**
+     * The path segments after {@code context}, so {@code /flights/7/passengers} gives {7, passengers}
+     */
+    private static String[] pathAfter(HttpExchange exchange, String context) {
+        String rest = exchange.getRequestURI().getPath().substring(context.length());
+        while (rest.startsWith("/")) {
+            rest = rest.substring(1);
+        }
+        while (rest.endsWith("/")) {
+            rest = rest.substring(0, rest.length() - 1);
+        }
+        return rest.isEmpty() ? new String[0] : rest.split("/");
+    }
+
+    private static Map<String, String> readForm(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        }
+        Map<String, String> form = parseForm(exchange.getRequestURI().getRawQuery());
+        form.putAll(parseForm(new String(body.toByteArray(), StandardCharsets.UTF_8)));
+        return form;
+    }
+
+    static Map<String, String> parseForm(String encoded) {
+        Map<String, String> form = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return form;
+        }
+        try {
+            for (String pair : encoded.split("&")) {
+                int eq = pair.indexOf('=');
+                String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), "UTF-8");
+                String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+                form.put(key, value);
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return form;
+    }
+
+    private static int parseInt(String value, int fallback) {
+        if (value == null || value.trim().isEmpty()) {
+            return fallback;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number: " + value);
+        }
+    }
+
+    private static StringBuilder appendFlight(StringBuilder json, FlightRecord flight) {
+        return json.append("{\"flightId\":").append(flight.getFlightId())
+                .append(",\"flightName\":").append(quote(flight.getFlightName()))
+                .append(",\"source\":").append(quote(flight.getSource()))
+                .append(",\"destination\":").append(quote(flight.getDestination()))
+                .append(",\"capacity\":").append(flight.getCapacity())
+                .append(",\"passengerCount\":").append(flight.getPassengerCount())
+                .append(",\"availableSeats\":").append(flight.getAvailableSeats()).append('}');
+    }
+
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "{\"error\":" + quote(message) + "}");
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * The result of a booking together with the stored passenger row when it succeeded
+ */
+public class BookingReceipt {
+    private final BookingResult result;
+    private final PassengerRecord passenger;
+
+    public BookingReceipt(BookingResult result, PassengerRecord passenger) {
+        this.result = result;
+        this.passenger = passenger;
+    }
+
+    static BookingReceipt refused(BookingResult result) {
+        return new BookingReceipt(result, null);
+    }
+
+    public BookingResult getResult() { return result; }
+
+    /**
+     * The inserted passenger, or null if the booking was refused
+     */
+    public PassengerRecord getPassenger() { return passenger; }
+
+    public boolean isBooked() {
+        return result == BookingResult.BOOKED;
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * The details needed to book one passenger onto one flight
+ */
+public class BookingRequest {
+    private final String name;
+    private final String passportNumber;
+    private final String contactNumber;
+    private final String email;
+    private final int flightId;
+
+    public BookingRequest(String name, String passportNumber, String contactNumber, String email, int flightId) {
+        this.name = name;
+        this.passportNumber = passportNumber;
+        this.contactNumber = contactNumber;
+        this.email = email;
+        this.flightId = flightId;
+    }
+
+    public String getName() { return name; }
+    public String getPassportNumber() { return passportNumber; }
+    public String getContactNumber() { return contactNumber; }
+    public String getEmail() { return email; }
+    public int getFlightId() { return flightId; }
+
+    @Override
+    public String toString() {
+        return name + " (" + passportNumber + ") -> flight " + flightId;
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * Outcome of a single booking attempt
+ */
+public enum BookingResult {
+    BOOKED("Passenger added successfully!"),
+    NO_SEATS("No available seats on the selected flight."),
+    UNKNOWN_FLIGHT("The selected flight does not exist."),
+    DUPLICATE_PASSPORT("Passport number already exists."),
+    DUPLICATE_CONTACT("Contact number already exists."),
+    DUPLICATE_EMAIL("Email already exists."),
+    INVALID_REQUEST("Please fill all passenger fields and select a flight."),
+    ERROR("The booking could not be saved.");
+
+    private final String message;
+
+    BookingResult(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isDuplicate() {
+        return this == DUPLICATE_PASSPORT || this == DUPLICATE_CONTACT || this == DUPLICATE_EMAIL;
+    }
+}
@@ -0,0 +1,120 @@
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Headless booking API over a {@link BookingStorage}, shared by the Swing GUI and
+ * {@link BookingHttpServer}.
+ *
+ * Requests are validated here and then handed to the handler, which settles duplicates and seat
+ * availability inside the booking transaction itself, so there are no separate existence checks
+ * to race against. Every method is safe to call from any number of threads.
+ */
+public class BookingService {
+    public static final int MIN_CAPACITY = 100;
+
+    private final BookingStorage db;
+
+    public BookingService(BookingStorage db) {
+        this.db = db;
+    }
+
+    public BookingStorage getDatabase() {
+        return db;
+    }
+
+    /**
+     * Creates a flight with at least {@link #MIN_CAPACITY} seats
+     *
+     * @throws IllegalArgumentException if a name, source or destination is blank
+     * @throws IllegalStateException    if the flight could not be stored
+     */
+    public FlightRecord addFlight(String name, String source, String destination, int capacity) {
+        if (isBlank(name) || isBlank(source) || isBlank(destination)) {
+            throw new IllegalArgumentException("All flight fields are required!");
+        }
+        FlightRecord flight = db.addFlight(name.trim(), source.trim(), destination.trim(), Math.max(capacity, MIN_CAPACITY));
+        if (flight == null) {
+            throw new IllegalStateException("The flight could not be saved.");
+        }
+        return flight;
+    }
+
+    /**
+     * Books one passenger and reports the outcome; never throws for a refused booking
+     */
+    public BookingResult book(BookingRequest request) {
+        if (!isValid(request)) {
+            return BookingResult.INVALID_REQUEST;
+        }
+        return db.bookPassenger(request.getName().trim(), request.getPassportNumber().trim(),
+                request.getContactNumber().trim(), request.getEmail().trim(), request.getFlightId());
+    }
+
+    /**
+     * As {@link #book(BookingRequest)}, completing when the booking is durable. With the resident
+     * inventory enabled this does not block the caller.
+     */
+    public CompletableFuture<BookingResult> bookAsync(BookingRequest request) {
+        if (!isValid(request)) {
+            return CompletableFuture.completedFuture(BookingResult.INVALID_REQUEST);
+        }
+        return db.bookPassengerAsync(request.getName().trim(), request.getPassportNumber().trim(),
+                request.getContactNumber().trim(), request.getEmail().trim(), request.getFlightId());
+    }
+
+    public List<FlightRecord> listFlights() {
+        return db.listFlights();
+    }
+
+    /**
+     * Flights from {@code source} to {@code destination} with at least {@code minSeats} seats free,
+     * most free seats first, answered from memory
+     */
+    public List<FlightRecord> searchRoutes(String source, String destination, int minSeats) {
+        if (isBlank(source) || isBlank(destination)) {
+            throw new IllegalArgumentException("Both source and destination are required!");
+        }
+        return db.searchRoutes(source, destination, minSeats);
+    }
+
+    /**
+     * Up to {@code limit} passengers whose name, passport or email starts with each word of
+     * {@code query}, answered from memory
+     */
+    public List<PassengerRecord> searchPassengers(String query, int limit) {
+        if (isBlank(query)) {
+            throw new IllegalArgumentException("Enter a name, passport or email to search for!");
+        }
+        return db.searchPassengers(query, limit);
+    }
+
+    /**
+     * The flight with {@code flightId}, or null if there is none
+     */
+    public FlightRecord getFlight(int flightId) {
+        return db.getFlight(flightId);
+    }
+
+    /**
+     * Up to {@code limit} passengers after {@code afterPassengerId}, in id order
+     */
+    public List<PassengerRecord> listPassengers(int afterPassengerId, int limit) {
+        return db.getPassengersPage(afterPassengerId, limit);
+    }
+
+    /**
+     * Name, passport, contact and email of everyone booked on {@code flightId}, by name
+     */
+    public List<String[]> listPassengersOnFlight(int flightId) {
+        return db.getPassengersByFlightId(flightId);
+    }
+
+    static boolean isValid(BookingRequest request) {
+        return request != null && !isBlank(request.getName()) && !isBlank(request.getPassportNumber())
+                && !isBlank(request.getContactNumber()) && !isBlank(request.getEmail()) && request.getFlightId() > 0;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,130 @@
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * The flight and passenger operations a storage engine provides.
+ *
+ * {@link DatabaseHandler} keeps everything in SQLite; {@link JournalStorage} keeps it in memory
+ * behind an append-only journal and snapshots. Both return the same rows in the same order from
+ * every query, so callers such as {@link BookingService} work on either.
+ */
+public interface BookingStorage {
+    /** Prefix of a location that selects {@link JournalStorage}, as in {@code journal:data/bookings} */
+    String JOURNAL_PREFIX = "journal:";
+
+    /**
+     * Opens the engine for {@code location}: a {@code journal:} directory or a JDBC URL
+     */
+    static BookingStorage open(String location) {
+        if (location.startsWith(JOURNAL_PREFIX)) {
+            return new JournalStorage(Paths.get(location.substring(JOURNAL_PREFIX.length())));
+        }
+        return new DatabaseHandler(location, DatabaseHandler.DEFAULT_READ_CONNECTIONS);
+    }
+
+    /**
+     * Adds a flight with at least 100 seats and returns it, or null if it could not be stored
+     */
+    FlightRecord addFlight(String name, String source, String destination, int capacity);
+
+    /**
+     * Books one passenger. Refusals are checked in a fixed order: duplicate passport, contact
+     * and email first, then an unknown flight, then a full one.
+     */
+    BookingResult bookPassenger(String name, String passport, String contact, String email, int flightId);
+
+    CompletableFuture<BookingResult> bookPassengerAsync(String name, String passport, String contact,
+                                                        String email, int flightId);
+
+    default boolean addPassenger(String name, String passport, String contact, String email, int flightId) {
+        return bookPassenger(name, passport, contact, email, flightId) == BookingResult.BOOKED;
+    }
+
+    /**
+     * One flight, or null if there is no flight with that id
+     */
+    FlightRecord getFlight(int flightId);
+
+    /**
+     * Every flight in id order
+     */
+    List<FlightRecord> listFlights();
+
+    /**
+     * One passenger, or null if there is no passenger with that id
+     */
+    PassengerRecord getPassenger(int passengerId);
+
+    List<String[]> getAllFlights();
+
+    List<String[]> getAllPassengers();
+
+    List<String[]> getPassengersWithFlights();
+
+    /**
+     * Name, passport, contact and email of everyone on {@code flightId}, ordered by name
+     */
+    List<String[]> getPassengersByFlightId(int flightId);
+
+    /**
+     * Flights with more than 50 seats, or fewer than 20 left
+     */
+    List<String[]> getUnionExample();
+
+    List<FlightRecord> getFlightsPage(int afterFlightId, int limit);
+
+    List<PassengerRecord> getPassengersPage(int afterPassengerId, int limit);
+
+    List<PassengerFlightRecord> getPassengersWithFlightsPage(int afterPassengerId, int limit);
+
+    List<FlightRecord> getFlightsAt(int offset, int limit);
+
+    List<PassengerRecord> getPassengersAt(int offset, int limit);
+
+    List<PassengerFlightRecord> getPassengersWithFlightsAt(int offset, int limit);
+
+    int countFlights();
+
+    int countPassengers();
+
+    int countPassengersWithFlights();
+
+    void forEachFlight(int fetchSize, Consumer<FlightRecord> action);
+
+    void forEachPassenger(int fetchSize, Consumer<PassengerRecord> action);
+
+    /**
+     * Flights from {@code source} to {@code destination} with at least {@code minSeats} seats
+     * free, most free seats first
+     */
+    List<FlightRecord> searchRoutes(String source, String destination, int minSeats);
+
+    /**
+     * Up to {@code limit} passengers whose name words, passport or email start with every word of
+     * {@code query}, ignoring case
+     */
+    List<PassengerRecord> searchPassengers(String query, int limit);
+
+    boolean passportExists(String passport);
+
+    boolean contactExists(String contact);
+
+    boolean emailExists(String email);
+
+    /**
+     * True if at least one passenger is booked on {@code flightId}
+     */
+    boolean flightExists(int flightId);
+
+    boolean hasAvailableSeats(int flightId);
+
+    void addChangeListener(DataChangeListener listener);
+
+    void removeChangeListener(DataChangeListener listener);
+
+    Metrics getMetrics();
+
+    void closeConnection();
+}
@@ -0,0 +1,388 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory read model of every flight and passenger, stored column by column.
+ *
+ * Ids, seat counts and foreign keys are plain {@code int[]} columns, and flight sources and
+ * destinations are dictionary-encoded through a {@link StringDictionary}, so a flight costs a few
+ * ints instead of a {@code String[]} of boxed numbers. {@link #scanFlights} and
+ * {@link #scanPassengers} hand columns to a visitor as primitives and allocate nothing per row.
+ *
+ * The store is filled by {@link #load} and then kept current by the {@link DataChangeListener}
+ * events {@link DatabaseHandler} publishes. Scans run under a read lock and updates under a
+ * write lock, so a scan always sees whole rows.
+ */
+public class ColumnarStore implements DataChangeListener {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Receives one flight per call; {@code source} and {@code destination} are dictionary codes
+     */
+    public interface FlightVisitor {
+        void visit(int row, int flightId, int source, int destination, int capacity, int passengerCount, int availableSeats);
+    }
+
+    public interface PassengerVisitor {
+        void visit(int row, int passengerId, int flightId);
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final StringDictionary places = new StringDictionary();
+    private BookingStorage source;
+
+    // Flight columns, one entry per row
+    private int flightCount;
+    private int[] flightIds = new int[INITIAL_CAPACITY];
+    private String[] flightNames = new String[INITIAL_CAPACITY];
+    private int[] sources = new int[INITIAL_CAPACITY];
+    private int[] destinations = new int[INITIAL_CAPACITY];
+    private int[] capacities = new int[INITIAL_CAPACITY];
+    private int[] passengerCounts = new int[INITIAL_CAPACITY];
+    private int[] availableSeats = new int[INITIAL_CAPACITY];
+    // Row of each flight indexed by flightId, -1 where there is none; ids are dense autoincrement values
+    private int[] flightRows = new int[0];
+
+    // Passenger columns
+    private int passengerCount;
+    private int[] passengerIds = new int[INITIAL_CAPACITY];
+    private int[] passengerFlights = new int[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] passports = new String[INITIAL_CAPACITY];
+    private String[] contacts = new String[INITIAL_CAPACITY];
+    private String[] emails = new String[INITIAL_CAPACITY];
+    private int lastLoadedPassengerId;
+
+    /**
+     * Replaces the contents with every flight and passenger in {@code db}. Change events that
+     * arrive meanwhile wait for the load and are then applied, skipping rows it already read.
+     */
+    public void load(BookingStorage db) {
+        lock.writeLock().lock();
+        try {
+            source = db;
+            flightCount = 0;
+            passengerCount = 0;
+            lastLoadedPassengerId = 0;
+            Arrays.fill(flightRows, -1);
+            db.forEachFlight(DatabaseHandler.DEFAULT_FETCH_SIZE, this::appendFlight);
+            db.forEachPassenger(DatabaseHandler.DEFAULT_FETCH_SIZE, passenger -> {
+                appendPassenger(passenger);
+                lastLoadedPassengerId = Math.max(lastLoadedPassengerId, passenger.getPassengerId());
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void flightAdded(FlightRecord flight) {
+        lock.writeLock().lock();
+        try {
+            if (rowOf(flight.getFlightId()) < 0) {
+                appendFlight(flight);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void flightChanged(FlightRecord flight) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(flight.getFlightId());
+            if (row < 0) {
+                appendFlight(flight);
+            } else {
+                capacities[row] = flight.getCapacity();
+                passengerCounts[row] = flight.getPassengerCount();
+                availableSeats[row] = flight.getAvailableSeats();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void passengerAdded(PassengerRecord passenger) {
+        lock.writeLock().lock();
+        try {
+            // Commits are serialized on the single writer, so ids up to the last loaded one were all read by load
+            if (passenger.getPassengerId() > lastLoadedPassengerId) {
+                appendPassenger(passenger);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bulkChange() {
+        BookingStorage db = source;
+        if (db != null) {
+            load(db);
+        }
+    }
+
+    private void appendFlight(FlightRecord flight) {
+        int row = flightCount;
+        if (row == flightIds.length) {
+            int grown = row * 2;
+            flightIds = Arrays.copyOf(flightIds, grown);
+            flightNames = Arrays.copyOf(flightNames, grown);
+            sources = Arrays.copyOf(sources, grown);
+            destinations = Arrays.copyOf(destinations, grown);
+            capacities = Arrays.copyOf(capacities, grown);
+            passengerCounts = Arrays.copyOf(passengerCounts, grown);
+            availableSeats = Arrays.copyOf(availableSeats, grown);
+        }
+        int flightId = flight.getFlightId();
+        flightIds[row] = flightId;
+        flightNames[row] = flight.getFlightName();
+        sources[row] = places.encode(flight.getSource());
+        destinations[row] = places.encode(flight.getDestination());
+        capacities[row] = flight.getCapacity();
+        passengerCounts[row] = flight.getPassengerCount();
+        availableSeats[row] = flight.getAvailableSeats();
+        if (flightId >= flightRows.length) {
+            int oldLength = flightRows.length;
+            flightRows = Arrays.copyOf(flightRows, Math.max(flightId + 1, oldLength * 2));
+            Arrays.fill(flightRows, oldLength, flightRows.length, -1);
+        }
+        flightRows[flightId] = row;
+        flightCount = row + 1;
+    }
+
+    private void appendPassenger(PassengerRecord passenger) {
+        int row = passengerCount;
+        if (row == passengerIds.length) {
+            int grown = row * 2;
+            passengerIds = Arrays.copyOf(passengerIds, grown);
+            passengerFlights = Arrays.copyOf(passengerFlights, grown);
+            names = Arrays.copyOf(names, grown);
+            passports = Arrays.copyOf(passports, grown);
+            contacts = Arrays.copyOf(contacts, grown);
+            emails = Arrays.copyOf(emails, grown);
+        }
+        passengerIds[row] = passenger.getPassengerId();
+        passengerFlights[row] = passenger.getFlightId();
+        names[row] = passenger.getName();
+        passports[row] = passenger.getPassportNumber();
+        contacts[row] = passenger.getContactNumber();
+        emails[row] = passenger.getEmail();
+        passengerCount = row + 1;
+    }
+
+    private int rowOf(int flightId) {
+        return flightId >= 0 && flightId < flightRows.length ? flightRows[flightId] : -1;
+    }
+
+    /**
+     * Visits every flight in load order without allocating
+     */
+    public void scanFlights(FlightVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < flightCount; row++) {
+                visitor.visit(row, flightIds[row], sources[row], destinations[row], capacities[row],
+                        passengerCounts[row], availableSeats[row]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visits every passenger in load order without allocating
+     */
+    public void scanPassengers(PassengerVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < passengerCount; row++) {
+                visitor.visit(row, passengerIds[row], passengerFlights[row]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The flight with {@code flightId} as a record, or null if the store does not have it
+     */
+    public FlightRecord getFlight(int flightId) {
+        lock.readLock().lock();
+        try {
+            int row = rowOf(flightId);
+            return row < 0 ? null : flightAt(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Seats still free on {@code flightId}, or -1 for a flight the store does not have
+     */
+    public int getAvailableSeats(int flightId) {
+        lock.readLock().lock();
+        try {
+            int row = rowOf(flightId);
+            return row < 0 ? -1 : availableSeats[row];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public FlightRecord flightAt(int row) {
+        lock.readLock().lock();
+        try {
+            checkRow(row, flightCount);
+            return new FlightRecord(flightIds[row], flightNames[row], places.decode(sources[row]),
+                    places.decode(destinations[row]), capacities[row], passengerCounts[row], availableSeats[row]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public PassengerRecord passengerAt(int row) {
+        lock.readLock().lock();
+        try {
+            checkRow(row, passengerCount);
+            return new PassengerRecord(passengerIds[row], names[row], passports[row], contacts[row], emails[row],
+                    passengerFlights[row]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void checkRow(int row, int count) {
+        if (row < 0 || row >= count) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + count);
+        }
+    }
+
+    /**
+     * Passengers booked on {@code flightId}, counted from the passenger columns
+     */
+    public int countPassengersOn(int flightId) {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (int row = 0; row < passengerCount; row++) {
+                if (passengerFlights[row] == flightId) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passengers per flight among those with {@code afterPassengerId < passengerId <= upToPassengerId},
+     * counted into an array indexed by flight id and only boxed into the map at the end
+     */
+    public Map<Integer, Integer> countBookingsPerFlight(int afterPassengerId, int upToPassengerId) {
+        lock.readLock().lock();
+        try {
+            int[] counts = new int[flightRows.length];
+            for (int row = 0; row < passengerCount; row++) {
+                int passengerId = passengerIds[row];
+                int flightId = passengerFlights[row];
+                if (passengerId > afterPassengerId && passengerId <= upToPassengerId
+                        && flightId >= 0 && flightId < counts.length) {
+                    counts[flightId]++;
+                }
+            }
+            Map<Integer, Integer> bookings = new HashMap<>();
+            for (int flightId = 0; flightId < counts.length; flightId++) {
+                if (counts[flightId] > 0) {
+                    bookings.put(flightId, counts[flightId]);
+                }
+            }
+            return bookings;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Free seats summed over every flight
+     */
+    public long totalAvailableSeats() {
+        lock.readLock().lock();
+        try {
+            long total = 0;
+            for (int row = 0; row < flightCount; row++) {
+                total += availableSeats[row];
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<FlightRecord> listFlights() {
+        lock.readLock().lock();
+        try {
+            List<FlightRecord> flights = new ArrayList<>(flightCount);
+            for (int row = 0; row < flightCount; row++) {
+                flights.add(flightAt(row));
+            }
+            return flights;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Dictionary that decodes the {@code source} and {@code destination} codes handed to a {@link FlightVisitor}
+     */
+    public StringDictionary getPlaces() {
+        return places;
+    }
+
+    public int getFlightCount() {
+        lock.readLock().lock();
+        try {
+            return flightCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getPassengerCount() {
+        lock.readLock().lock();
+        try {
+            return passengerCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rough heap held by the columns, counting array slots but not the strings they point to,
+     * which are shared with whoever else holds them
+     */
+    public long estimatedColumnBytes() {
+        lock.readLock().lock();
+        try {
+            long intColumns = 6L * flightIds.length + flightRows.length + 2L * passengerIds.length;
+            long referenceColumns = flightNames.length + 4L * names.length;
+            return intColumns * Integer.BYTES + referenceColumns * 4L; // compressed references
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarStore[flights=" + getFlightCount() + ", passengers=" + getPassengerCount()
+                + ", places=" + places.size() + ", columnBytes=" + estimatedColumnBytes() + "]";
+    }
+}
@@ -0,0 +1,196 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of SQLite connections for one database file.
+ *
+ * The database is opened in WAL mode so readers never block the writer. There is a single
+ * write connection (SQLite only allows one writer at a time anyway) and a fixed number of
+ * read-only connections. Callers lease a connection per operation and return it by closing
+ * the {@link Lease}.
+ *
+ * Each connection keeps its own {@link StatementCache}, so the SQL a caller prepares is parsed
+ * and planned once per connection rather than once per call.
+ */
+public class ConnectionPool {
+    private static final long LEASE_TIMEOUT_MS = 30_000;
+    private static final int BUSY_TIMEOUT_MS = 5_000;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    private final String url;
+    private final BlockingQueue<Connection> readers;
+    private final BlockingQueue<Connection> writer;
+    private final List<Connection> allConnections = new ArrayList<>();
+    private final List<StatementCache> statementCaches = new ArrayList<>();
+    private final StatementStats statementStats = new StatementStats();
+    private final LatencyHistogram readWait = new LatencyHistogram();
+    private final LatencyHistogram writeWait = new LatencyHistogram();
+    private final int statementCacheSize;
+    private volatile boolean closed;
+
+    /**
+     * Opens one write connection and {@code readerCount} read connections to {@code url}
+     */
+    public ConnectionPool(String url, int readerCount) throws SQLException {
+        this(url, readerCount, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Same as {@link #ConnectionPool(String, int)} with room for {@code statementCacheSize}
+     * compiled statements per connection
+     */
+    public ConnectionPool(String url, int readerCount, int statementCacheSize) throws SQLException {
+        if (readerCount < 1) {
+            throw new IllegalArgumentException("readerCount must be at least 1");
+        }
+        if (statementCacheSize < 1) {
+            throw new IllegalArgumentException("statementCacheSize must be at least 1");
+        }
+        this.url = url;
+        this.statementCacheSize = statementCacheSize;
+        this.readers = new ArrayBlockingQueue<>(readerCount);
+        this.writer = new ArrayBlockingQueue<>(1);
+
+        try {
+            // The writer is opened first so the switch to WAL happens before any reader attaches
+            Connection writeConn = open(false);
+            writer.add(writeConn);
+            for (int i = 0; i < readerCount; i++) {
+                readers.add(open(true));
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private Connection open(boolean readOnly) throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        allConnections.add(conn);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS + ";");
+            stmt.execute("PRAGMA foreign_keys = ON;");
+            if (readOnly) {
+                stmt.execute("PRAGMA query_only = ON;");
+            } else {
+                stmt.execute("PRAGMA journal_mode = WAL;");
+            }
+        }
+        StatementCache cache = new StatementCache(conn, statementStats, statementCacheSize);
+        statementCaches.add(cache);
+        return cache.wrap();
+    }
+
+    /**
+     * Leases a read-only connection, waiting if all readers are in use
+     */
+    public Lease read() throws SQLException {
+        return new Lease(take(readers, "read", readWait), readers);
+    }
+
+    /**
+     * Leases the write connection, waiting until the current writer releases it
+     */
+    public Lease write() throws SQLException {
+        return new Lease(take(writer, "write", writeWait), writer);
+    }
+
+    private Connection take(BlockingQueue<Connection> queue, String kind, LatencyHistogram waits) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool for " + url + " is closed");
+        }
+        long started = System.nanoTime();
+        try {
+            Connection conn = queue.poll();
+            if (conn == null) {
+                conn = queue.poll(LEASE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            }
+            waits.record(System.nanoTime() - started);
+            if (conn == null) {
+                throw new SQLException("Timed out waiting for a " + kind + " connection to " + url);
+            }
+            return conn;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a " + kind + " connection", e);
+        }
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Time callers spent waiting for a read connection, in nanoseconds
+     */
+    public LatencyHistogram getReadWait() {
+        return readWait;
+    }
+
+    /**
+     * Time callers spent waiting for the write connection, in nanoseconds
+     */
+    public LatencyHistogram getWriteWait() {
+        return writeWait;
+    }
+
+    /**
+     * Execution counts and latency of every statement prepared through this pool
+     */
+    public StatementStats getStatementStats() {
+        return statementStats;
+    }
+
+    /**
+     * Closes every connection owned by the pool, including leased ones
+     */
+    public void close() {
+        closed = true;
+        for (StatementCache cache : statementCaches) {
+            cache.close();
+        }
+        statementCaches.clear();
+        for (Connection conn : allConnections) {
+            try {
+                if (!conn.isClosed()) {
+                    conn.close();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        allConnections.clear();
+        readers.clear();
+        writer.clear();
+    }
+
+    /**
+     * A connection borrowed from the pool. Closing the lease hands the connection back.
+     */
+    public static class Lease implements AutoCloseable {
+        private final Connection conn;
+        private final BlockingQueue<Connection> home;
+        private boolean released;
+
+        private Lease(Connection conn, BlockingQueue<Connection> home) {
+            this.conn = conn;
+            this.home = home;
+        }
+
+        public Connection connection() {
+            return conn;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                home.offer(conn);
+            }
+        }
+    }
+}
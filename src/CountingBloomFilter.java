@@ -0,0 +1,102 @@
+/**
+ * Bloom filter over strings with a small counter per slot instead of a bit, so values can be
+ * removed as well as added.
+ *
+ * {@link #mightContain} never answers false for a value that was added and not removed; it
+ * answers true for a value never added with roughly the false-positive rate the filter was
+ * sized for, as long as no more than {@code expectedValues} are held. Counters stop at 255 and
+ * are then never decremented, which can only cost extra false positives. Not thread-safe.
+ */
+public class CountingBloomFilter {
+    private final byte[] counters;
+    private final int hashes;
+    private final int expectedValues;
+    private int size;
+
+    public CountingBloomFilter(int expectedValues, double falsePositiveRate) {
+        this.expectedValues = Math.max(1, expectedValues);
+        double slots = -this.expectedValues * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.counters = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(64, Math.ceil(slots)))];
+        this.hashes = Math.max(1, (int) Math.round(counters.length / (double) this.expectedValues * Math.log(2)));
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        for (int i = 0; i < hashes; i++) {
+            int slot = slot(hash, i);
+            if (counters[slot] != (byte) 0xff) {
+                counters[slot]++;
+            }
+        }
+        size++;
+    }
+
+    /**
+     * Takes back one earlier {@link #add} of {@code value}; removing a value that was never added
+     * corrupts the filter
+     */
+    public void remove(String value) {
+        long hash = hash(value);
+        for (int i = 0; i < hashes; i++) {
+            int slot = slot(hash, i);
+            if (counters[slot] != 0 && counters[slot] != (byte) 0xff) {
+                counters[slot]--;
+            }
+        }
+        size--;
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        for (int i = 0; i < hashes; i++) {
+            if (counters[slot(hash, i)] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * True once more values are held than the filter was sized for, so false positives climb
+     */
+    public boolean isOverCapacity() {
+        return size > expectedValues;
+    }
+
+    public int getExpectedValues() {
+        return expectedValues;
+    }
+
+    public long getSizeInBytes() {
+        return counters.length;
+    }
+
+    /**
+     * Slot for hash function {@code i}, by double hashing the two halves of one 64-bit hash
+     */
+    private int slot(long hash, int i) {
+        int combined = (int) hash + i * (int) (hash >>> 32);
+        return (combined & Integer.MAX_VALUE) % counters.length;
+    }
+
+    /**
+     * 64-bit FNV-1a over the chars, finished with the MurmurHash3 mixer to spread the bits
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
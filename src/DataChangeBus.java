@@ -0,0 +1,62 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fans {@link DataChangeListener} events out to every registered listener.
+ * A failing listener is reported and skipped so it cannot stop the others.
+ */
+public class DataChangeBus {
+    private final List<DataChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(DataChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(DataChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    public void flightAdded(FlightRecord flight) {
+        for (DataChangeListener listener : listeners) {
+            try {
+                listener.flightAdded(flight);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public void flightChanged(FlightRecord flight) {
+        for (DataChangeListener listener : listeners) {
+            try {
+                listener.flightChanged(flight);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public void passengerAdded(PassengerRecord passenger) {
+        for (DataChangeListener listener : listeners) {
+            try {
+                listener.passengerAdded(passenger);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public void bulkChange() {
+        for (DataChangeListener listener : listeners) {
+            try {
+                listener.bulkChange();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
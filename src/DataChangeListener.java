@@ -0,0 +1,23 @@
+/**
+ * Row-level changes published by {@link DatabaseHandler} after they commit.
+ * Called on the thread that made the change; GUI listeners must hop to the EDT themselves.
+ */
+public interface DataChangeListener {
+    default void flightAdded(FlightRecord flight) {
+    }
+
+    /**
+     * A flight's passenger_count or available_seats changed; {@code flight} holds the new values
+     */
+    default void flightChanged(FlightRecord flight) {
+    }
+
+    default void passengerAdded(PassengerRecord passenger) {
+    }
+
+    /**
+     * Many rows changed at once (a batch import) and listeners should reload rather than patch
+     */
+    default void bulkChange() {
+    }
+}
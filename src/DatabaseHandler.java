@@ -1,33 +1,244 @@
+import javax.management.ObjectName;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Handles all database operations for the Flight Booking System
  */
-public class DatabaseHandler {
-    private Connection conn;
+public class DatabaseHandler implements BookingStorage {
+    public static final String DEFAULT_URL = "jdbc:sqlite:airport.db";
+    public static final int DEFAULT_READ_CONNECTIONS = 4;
+
+    static final String INSERT_TRIGGER_NAME = "update_passenger_count_after_insert";
+    private static final String INSERT_TRIGGER_SQL = "CREATE TRIGGER IF NOT EXISTS " + INSERT_TRIGGER_NAME + " "
+            + "AFTER INSERT ON passengers "
+            + "FOR EACH ROW "
+            + "BEGIN "
+            + "UPDATE flights SET passenger_count = passenger_count + 1, "
+            + "available_seats = capacity - passenger_count - 1 "
+            + "WHERE flightId = NEW.flightId; "
+            + "END;";
+    /** While this one-row table holds a row, the insert trigger is skipped; see {@link PassengerBatchImporter} */
+    static final String BULK_LOAD_GUARD_TABLE = "bulk_load_guard";
+    private static final String GATED_INSERT_TRIGGER_SQL = "CREATE TRIGGER " + INSERT_TRIGGER_NAME + " "
+            + "AFTER INSERT ON passengers "
+            + "FOR EACH ROW WHEN NOT EXISTS (SELECT 1 FROM " + BULK_LOAD_GUARD_TABLE + ") "
+            + "BEGIN "
+            + "UPDATE flights SET passenger_count = passenger_count + 1, "
+            + "available_seats = capacity - passenger_count - 1 "
+            + "WHERE flightId = NEW.flightId; "
+            + "END;";
+
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    @ExpectedFullScan(value = "flights", reason = "lists every flight")
+    private static final String ALL_FLIGHTS_SQL = "SELECT flightId, flightName, source, destination, capacity, passenger_count, available_seats "
+            + "FROM flights ORDER BY flightId";
+    private static final String FLIGHTS_PAGE_SQL = "SELECT flightId, flightName, source, destination, capacity, passenger_count, available_seats "
+            + "FROM flights WHERE flightId > ? ORDER BY flightId LIMIT ?";
+    @ExpectedFullScan(value = "passengers", reason = "lists every passenger")
+    private static final String ALL_PASSENGERS_SQL = "SELECT passengerId, name, passportNumber, contactNumber, email, flightId "
+            + "FROM passengers ORDER BY passengerId";
+    private static final String PASSENGERS_PAGE_SQL = "SELECT passengerId, name, passportNumber, contactNumber, email, flightId "
+            + "FROM passengers WHERE passengerId > ? ORDER BY passengerId LIMIT ?";
+    @ExpectedFullScan(value = "p", reason = "lists every passenger")
+    private static final String PASSENGERS_WITH_FLIGHTS_SQL = "SELECT p.passengerId, p.name, p.passportNumber, p.contactNumber, p.email, "
+            + "f.flightId, f.flightName, f.source, f.destination, f.available_seats "
+            + "FROM passengers p JOIN flights f ON p.flightId = f.flightId "
+            + "ORDER BY p.passengerId";
+    private static final String PASSENGERS_WITH_FLIGHTS_PAGE_SQL = "SELECT p.passengerId, p.name, p.passportNumber, p.contactNumber, p.email, "
+            + "f.flightId, f.flightName, f.source, f.destination, f.available_seats "
+            + "FROM passengers p JOIN flights f ON p.flightId = f.flightId "
+            + "WHERE p.passengerId > ? ORDER BY p.passengerId LIMIT ?";
+    @ExpectedFullScan(value = "flights", reason = "OFFSET walks the rows it skips")
+    private static final String FLIGHTS_AT_SQL = "SELECT flightId, flightName, source, destination, capacity, passenger_count, available_seats "
+            + "FROM flights ORDER BY flightId LIMIT ? OFFSET ?";
+    @ExpectedFullScan(value = "passengers", reason = "OFFSET walks the rows it skips")
+    private static final String PASSENGERS_AT_SQL = "SELECT passengerId, name, passportNumber, contactNumber, email, flightId "
+            + "FROM passengers ORDER BY passengerId LIMIT ? OFFSET ?";
+    @ExpectedFullScan(value = "p", reason = "OFFSET walks the rows it skips")
+    private static final String PASSENGERS_WITH_FLIGHTS_AT_SQL = "SELECT p.passengerId, p.name, p.passportNumber, p.contactNumber, p.email, "
+            + "f.flightId, f.flightName, f.source, f.destination, f.available_seats "
+            + "FROM passengers p JOIN flights f ON p.flightId = f.flightId "
+            + "ORDER BY p.passengerId LIMIT ? OFFSET ?";
+    @ExpectedFullScan(value = "flights", reason = "counts every flight")
+    private static final String COUNT_FLIGHTS_SQL = "SELECT COUNT(*) FROM flights";
+    @ExpectedFullScan(value = "passengers", reason = "counts every passenger")
+    private static final String COUNT_PASSENGERS_SQL = "SELECT COUNT(*) FROM passengers";
+    @ExpectedFullScan(value = "p", reason = "counts every passenger")
+    private static final String COUNT_PASSENGERS_WITH_FLIGHTS_SQL = "SELECT COUNT(*) FROM passengers p "
+            + "JOIN flights f ON p.flightId = f.flightId";
+
+    private static final String MAX_PASSENGER_ID_SQL = "SELECT COALESCE(MAX(passengerId), 0) FROM passengers";
+    // NOT INDEXED keeps the planner on the rowid range instead of walking the whole flightId index
+    private static final String BOOKINGS_PER_FLIGHT_SQL = "SELECT flightId, COUNT(*) FROM passengers NOT INDEXED "
+            + "WHERE passengerId > ? AND passengerId <= ? GROUP BY flightId";
+
+    private static final String FLIGHT_BY_ID_SQL = "SELECT flightId, flightName, source, destination, capacity, passenger_count, available_seats "
+            + "FROM flights WHERE flightId = ?";
+    private static final String PASSENGER_BY_ID_SQL = "SELECT passengerId, name, passportNumber, contactNumber, email, flightId "
+            + "FROM passengers WHERE passengerId = ?";
+
+    private static final String INSERT_FLIGHT_SQL = "INSERT INTO flights (flightName, source, destination, capacity, passenger_count, available_seats) "
+            + "VALUES (?, ?, ?, ?, 0, ?)";
+    private static final String PASSENGERS_BY_FLIGHT_SQL = "SELECT name, passportNumber, contactNumber, email "
+            + "FROM passengers WHERE flightId = ? ORDER BY name";
+    @ExpectedFullScan(value = "flights", reason = "every flight has at least 100 seats, so capacity > 50 matches every row")
+    private static final String UNION_EXAMPLE_SQL = "SELECT flightId, flightName, source, destination FROM flights WHERE capacity > 50 "
+            + "UNION "
+            + "SELECT flightId, flightName, source, destination FROM flights WHERE available_seats < 20";
+    private static final String AVAILABLE_SEATS_SQL = "SELECT available_seats FROM flights WHERE flightId = ?";
+    private static final String PASSPORT_EXISTS_SQL = "SELECT 1 FROM passengers WHERE passportNumber = ? LIMIT 1";
+    private static final String CONTACT_EXISTS_SQL = "SELECT 1 FROM passengers WHERE contactNumber = ? LIMIT 1";
+    private static final String EMAIL_EXISTS_SQL = "SELECT 1 FROM passengers WHERE email = ? LIMIT 1";
+    private static final String FLIGHT_HAS_PASSENGERS_SQL = "SELECT 1 FROM passengers WHERE flightId = ? LIMIT 1";
+
+    public static final int DEFAULT_FLIGHT_CACHE_SIZE = 10_000;
+    /** Set to a file path to have metrics written there periodically; a .json name selects JSON */
+    public static final String METRICS_FILE_PROPERTY = "airport.metrics.file";
+    public static final String METRICS_INTERVAL_PROPERTY = "airport.metrics.intervalSeconds";
+    private static final int MAX_BUSY_RETRIES = 3;
+
+    private ConnectionPool pool;
+    private final Metrics metrics = new Metrics();
+    private ObjectName metricsName;
+    private MetricsReporter metricsReporter;
+    private final DataChangeBus changes = new DataChangeBus();
+    private final FlightCache flightCache = new FlightCache(DEFAULT_FLIGHT_CACHE_SIZE);
+    private final SeatReservationEngine reservations = new SeatReservationEngine(metrics);
+    private volatile SeatInventory inventory;
+    private WriteBehindWriter writeBehind;
+    private volatile GroupCommitWriter groupCommit;
+    private volatile ColumnarStore readModel;
+    private RouteIndex routeIndex;
+    private PassengerSearchIndex searchIndex;
+    private final PassengerUniquenessIndex uniqueness = new PassengerUniquenessIndex();
+    private final CompletableFuture<Void> warmUp;
 
     /**
      * Constructor initializes database connection and creates tables if they don't exist
      */
     public DatabaseHandler() {
+        this(DEFAULT_URL, DEFAULT_READ_CONNECTIONS);
+    }
+
+    /**
+     * Opens a pooled handler on {@code url} with one write connection and
+     * {@code readConnections} read connections, so list queries can run while a booking commits
+     */
+    public DatabaseHandler(String url, int readConnections) {
+        // The cache listens first so other listeners already see the change when they read flights
+        changes.addListener(flightCache);
+        long started = System.nanoTime();
         try {
             Class.forName("org.sqlite.JDBC");
-            conn = DriverManager.getConnection("jdbc:sqlite:airport.db");
-            try (Statement stmt = conn.createStatement()) {
-                stmt.execute("PRAGMA foreign_keys = ON;");
+            pool = new ConnectionPool(url, readConnections);
+            metrics.register(Metrics.READ_WAIT, pool.getReadWait());
+            metrics.register(Metrics.WRITE_WAIT, pool.getWriteWait());
+            try (ConnectionPool.Lease lease = pool.write()) {
+                schemaMigrations().migrate(lease.connection());
             }
-            createTables();
         } catch (ClassNotFoundException | SQLException e) {
-            e.printStackTrace();
+            metrics.failed("open", e);
+        }
+        metrics.recordSince(Metrics.STARTUP_OPEN, started);
+        changes.addListener(uniqueness);
+        warmUp = pool == null ? CompletableFuture.completedFuture(null) : startWarmUp();
+        metricsName = MetricsMBean.register(metrics, url);
+        String metricsFile = System.getProperty(METRICS_FILE_PROPERTY);
+        if (metricsFile != null) {
+            metricsReporter = new MetricsReporter(metrics, Paths.get(metricsFile),
+                    Long.getLong(METRICS_INTERVAL_PROPERTY, 10));
+            metricsReporter.start();
+        }
+    }
+
+    /**
+     * Fills the flight cache and the uniqueness index side by side in the background, so the
+     * constructor returns as soon as the schema is current. Until they are warm, flights are read
+     * from the database and every uniqueness check is confirmed by a query.
+     */
+    private CompletableFuture<Void> startWarmUp() {
+        long started = System.nanoTime();
+        ExecutorService executor = TaskExecutors.newBlockingIoExecutor("warm-up", 2);
+        CompletableFuture<Void> warm = CompletableFuture.allOf(
+                CompletableFuture.runAsync(this::listFlights, executor),
+                CompletableFuture.runAsync(() -> uniqueness.load(this), executor));
+        executor.shutdown(); // both tasks are already queued
+        return warm.whenComplete((done, error) -> {
+            if (error != null) {
+                metrics.failed("warmUp", error instanceof Exception ? (Exception) error : new RuntimeException(error));
+            }
+            metrics.recordSince(Metrics.STARTUP_WARM_UP, started);
+        });
+    }
+
+    /**
+     * Completes once the flight cache and the uniqueness index have been loaded
+     */
+    public CompletableFuture<Void> getWarmUp() {
+        return warmUp;
+    }
+
+    /**
+     * Every schema version this handler knows about. Add new versions at the end; never edit
+     * one that has shipped.
+     */
+    static SchemaMigrations schemaMigrations() {
+        return new SchemaMigrations()
+                .add(1, "flights and passengers tables, seat triggers, flight_passenger_view",
+                        DatabaseHandler::createTables)
+                .add(2, "indexes for per-flight passenger lookups and seat predicates",
+                        DatabaseHandler::createIndexes)
+                .add(3, "bulk_load_guard table gating the passenger insert trigger",
+                        DatabaseHandler::gateInsertTrigger)
+                .add(4, "drop idx_flights_capacity, which no query can use",
+                        DatabaseHandler::dropCapacityIndex);
+    }
+
+    /**
+     * Lets a bulk import switch the per-row insert trigger off with a row in a control table
+     * rather than by dropping the trigger, which would be a schema change invalidating every
+     * prepared statement on every connection
+     */
+    private static void gateInsertTrigger(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + BULK_LOAD_GUARD_TABLE + " (id INTEGER PRIMARY KEY CHECK (id = 1))");
+            stmt.execute("DROP TRIGGER IF EXISTS " + INSERT_TRIGGER_NAME);
+            stmt.execute(GATED_INSERT_TRIGGER_SQL);
+        }
+    }
+
+    /**
+     * addFlight never stores fewer than 100 seats, so the capacity > 50 of getUnionExample
+     * matches every flight and a scan is cheaper than the index; the index only cost writes
+     */
+    private static void dropCapacityIndex(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP INDEX IF EXISTS idx_flights_capacity");
         }
     }
 
     /**
      * Creates database tables if they don't exist
      */
-    private void createTables() {
+    private static void createTables(Connection conn) throws SQLException {
         try (Statement stmt = conn.createStatement()) {
             String flightTable = "CREATE TABLE IF NOT EXISTS flights ("
                     + "flightId INTEGER PRIMARY KEY AUTOINCREMENT, "
@@ -45,27 +256,30 @@ public class DatabaseHandler {
             stmt.execute(flightTable);
             stmt.execute(passengerTable);
 
-            createTriggers();
-            createView();
-        } catch (SQLException e) {
-            e.printStackTrace();
+            createTriggers(conn);
+            createView(conn);
         }
     }
 
     /**
-     * Creates triggers to maintain consistency between tables
+     * Indexes the per-flight passenger lookups (getPassengersByFlightId, the seat reconcile and
+     * the flight join) and the available_seats predicate of getUnionExample.
+     * The passengers index carries every column getPassengersByFlightId selects, in its ORDER BY
+     * order, so that query is answered from the index alone.
      */
-    private void createTriggers() {
+    private static void createIndexes(Connection conn) throws SQLException {
         try (Statement stmt = conn.createStatement()) {
-            String incrementTrigger = "CREATE TRIGGER IF NOT EXISTS update_passenger_count_after_insert "
-                    + "AFTER INSERT ON passengers "
-                    + "FOR EACH ROW "
-                    + "BEGIN "
-                    + "UPDATE flights SET passenger_count = passenger_count + 1, "
-                    + "available_seats = capacity - passenger_count - 1 "
-                    + "WHERE flightId = NEW.flightId; "
-                    + "END;";
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_passengers_flight "
+                    + "ON passengers(flightId, name, passportNumber, contactNumber, email)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_flights_available_seats ON flights(available_seats)");
+        }
+    }
 
+    /**
+     * Creates triggers to maintain consistency between tables
+     */
+    private static void createTriggers(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
             String decrementTrigger = "CREATE TRIGGER IF NOT EXISTS update_passenger_count_after_delete "
                     + "AFTER DELETE ON passengers "
                     + "FOR EACH ROW "
@@ -75,17 +289,15 @@ public class DatabaseHandler {
                     + "WHERE flightId = OLD.flightId; "
                     + "END;";
 
-            stmt.execute(incrementTrigger);
+            stmt.execute(INSERT_TRIGGER_SQL);
             stmt.execute(decrementTrigger);
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
     }
 
     /**
      * Creates view to join flight and passenger data
      */
-    private void createView() {
+    private static void createView(Connection conn) throws SQLException {
         try (Statement stmt = conn.createStatement()) {
             String view = "CREATE VIEW IF NOT EXISTS flight_passenger_view AS "
                     + "SELECT p.passengerId, p.name, p.passportNumber, p.contactNumber, p.email, "
@@ -93,74 +305,420 @@ public class DatabaseHandler {
                     + "FROM passengers p "
                     + "JOIN flights f ON p.flightId = f.flightId";
             stmt.execute(view);
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
     }
 
     /**
-     * Adds a new flight to the database
+     * Adds a new flight to the database and returns it, or null if the insert failed
      */
-    public void addFlight(String name, String source, String destination, int capacity) {
+    public FlightRecord addFlight(String name, String source, String destination, int capacity) {
         int finalCapacity = Math.max(capacity, 100); // Ensure minimum 100 seats
-        
-        String sql = "INSERT INTO flights (flightName, source, destination, capacity, passenger_count, available_seats) "
-                   + "VALUES (?, ?, ?, ?, 0, ?)";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        FlightRecord added = null;
+        long started = System.nanoTime();
+
+        try (ConnectionPool.Lease lease = pool.write();
+             PreparedStatement pstmt = lease.connection().prepareStatement(INSERT_FLIGHT_SQL, Statement.RETURN_GENERATED_KEYS)) {
             pstmt.setString(1, name);
             pstmt.setString(2, source);
             pstmt.setString(3, destination);
             pstmt.setInt(4, finalCapacity);
             pstmt.setInt(5, finalCapacity);
             pstmt.executeUpdate();
+            int flightId = SeatReservationEngine.generatedId(pstmt);
+            SeatInventory seats = inventory;
+            if (seats != null) {
+                seats.register(flightId, finalCapacity);
+            }
+            added = new FlightRecord(flightId, name, source, destination, finalCapacity, 0, finalCapacity);
         } catch (SQLException e) {
-            e.printStackTrace();
+            metrics.failed("addFlight", e);
         }
+        metrics.recordSince("addFlight", started);
+        if (added != null) {
+            changes.flightAdded(added);
+        }
+        return added;
     }
 
     /**
      * Adds a passenger to the database
      */
     public boolean addPassenger(String name, String passport, String contact, String email, int flightId) {
-        if (!hasAvailableSeats(flightId)) {
+        return bookPassenger(name, passport, contact, email, flightId) == BookingResult.BOOKED;
+    }
+
+    /**
+     * Books a passenger onto a flight and reports why the booking was refused, if it was.
+     * Seat reservation and insert run in one transaction on the leased write connection, which
+     * is retried a few times if SQLite stays busy past its timeout.
+     */
+    public BookingResult bookPassenger(String name, String passport, String contact, String email, int flightId) {
+        if (inventory != null || groupCommit != null) {
+            return bookPassengerAsync(name, passport, contact, email, flightId).join();
+        }
+        long started = System.nanoTime();
+        BookingReceipt receipt = null;
+        try {
+            BookingResult duplicate = findDuplicate(passport, contact, email);
+            if (duplicate != null) {
+                metrics.rejected(duplicate);
+                return duplicate;
+            }
+            for (int attempt = 0; receipt == null; attempt++) {
+                try (ConnectionPool.Lease lease = pool.write()) {
+                    Connection conn = lease.connection();
+                    receipt = reservations.reserve(conn, name, passport, contact, email, flightId);
+                    if (receipt.isBooked()) {
+                        // Published before the lease is released, so the next booking's seat count can't go out first
+                        publishBookings(Collections.singletonList(receipt.getPassenger()), id -> readFlight(conn, id));
+                    }
+                } catch (SQLException e) {
+                    if (!SeatReservationEngine.isBusy(e) || attempt >= MAX_BUSY_RETRIES || !backOff(attempt)) {
+                        metrics.failed("bookPassenger", e);
+                        return BookingResult.ERROR;
+                    }
+                    metrics.increment(Metrics.BUSY_RETRIES);
+                }
+            }
+        } finally {
+            metrics.recordSince("bookPassenger", started);
+        }
+        if (!receipt.isBooked()) {
+            metrics.rejected(receipt.getResult());
+        }
+        return receipt.getResult();
+    }
+
+    /**
+     * Screens a booking against the uniqueness index before it takes the write connection. Values
+     * the index rules out cost nothing; a possible hit is confirmed with an indexed read. Returns
+     * the duplicate found, or null to go ahead and let the UNIQUE constraints decide.
+     */
+    private BookingResult findDuplicate(String passport, String contact, String email) {
+        if (confirmedDuplicate(uniqueness.mightContainPassport(passport), PASSPORT_EXISTS_SQL, passport)) {
+            return BookingResult.DUPLICATE_PASSPORT;
+        }
+        if (confirmedDuplicate(uniqueness.mightContainContact(contact), CONTACT_EXISTS_SQL, contact)) {
+            return BookingResult.DUPLICATE_CONTACT;
+        }
+        if (confirmedDuplicate(uniqueness.mightContainEmail(email), EMAIL_EXISTS_SQL, email)) {
+            return BookingResult.DUPLICATE_EMAIL;
+        }
+        return null;
+    }
+
+    private boolean confirmedDuplicate(boolean mightExist, String sql, String value) {
+        if (!mightExist) {
+            metrics.increment(Metrics.UNIQUENESS_SCREENED);
             return false;
         }
-        
+        boolean exists = checkExists("uniquenessCheck", sql, value);
+        metrics.increment(exists ? Metrics.UNIQUENESS_CONFIRMED : Metrics.UNIQUENESS_FALSE_POSITIVES);
+        return exists;
+    }
+
+    /**
+     * Sleeps before retry number {@code attempt + 1}; false if interrupted
+     */
+    private static boolean backOff(int attempt) {
         try {
-            conn.setAutoCommit(false);
-            
-            if (passportExists(passport) || contactExists(contact) || emailExists(email)) {
-                conn.rollback();
-                return false;
+            Thread.sleep(10L << attempt);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Tells listeners about bookings committed by the single write-behind or group-commit thread,
+     * which publishes its batches in the order it committed them
+     */
+    private void publishBookings(List<PassengerRecord> passengers) {
+        publishBookings(passengers, this::readFlight);
+    }
+
+    /**
+     * Tells listeners about committed bookings: each new passenger, then the new seat counts of
+     * every flight they were booked on, as read by {@code flights}
+     */
+    private void publishBookings(List<PassengerRecord> passengers, IntFunction<FlightRecord> flights) {
+        Set<Integer> flightIds = new LinkedHashSet<>();
+        for (PassengerRecord passenger : passengers) {
+            changes.passengerAdded(passenger);
+            flightIds.add(passenger.getFlightId());
+        }
+        for (int flightId : flightIds) {
+            FlightRecord flight = flights.apply(flightId);
+            if (flight != null) {
+                changes.flightChanged(flight);
             }
+        }
+    }
 
-            String sql = "INSERT INTO passengers (name, passportNumber, contactNumber, email, flightId) "
-                       + "VALUES (?, ?, ?, ?, ?)";
-            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, name);
-                pstmt.setString(2, passport);
-                pstmt.setString(3, contact);
-                pstmt.setString(4, email);
-                pstmt.setInt(5, flightId);
-                pstmt.executeUpdate();
-                conn.commit();
-                return true;
+    /**
+     * Gets one flight, or null if there is no flight with that id
+     */
+    public FlightRecord getFlight(int flightId) {
+        FlightRecord cached = flightCache.get(flightId);
+        if (cached != null || flightCache.isComplete()) {
+            return cached;
+        }
+        FlightRecord flight = readFlight(flightId);
+        if (flight != null) {
+            flightCache.put(flight);
+        }
+        return flight;
+    }
+
+    /**
+     * Reads one flight from the database, bypassing the cache
+     */
+    private FlightRecord readFlight(int flightId) {
+        try (ConnectionPool.Lease lease = pool.read()) {
+            return readFlight(lease.connection(), flightId);
+        } catch (SQLException e) {
+            metrics.failed("readFlight", e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads one flight on {@code conn}, or null if it is missing or can't be read
+     */
+    private FlightRecord readFlight(Connection conn, int flightId) {
+        try (PreparedStatement pstmt = conn.prepareStatement(FLIGHT_BY_ID_SQL)) {
+            pstmt.setInt(1, flightId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? FlightRecord.from(rs) : null;
             }
         } catch (SQLException e) {
-            try {
-                conn.rollback();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
+            metrics.failed("readFlight", e);
+            return null;
+        }
+    }
+
+    /**
+     * Gets one passenger, or null if there is no passenger with that id
+     */
+    public PassengerRecord getPassenger(int passengerId) {
+        try (ConnectionPool.Lease lease = pool.read();
+             PreparedStatement pstmt = lease.connection().prepareStatement(PASSENGER_BY_ID_SQL)) {
+            pstmt.setInt(1, passengerId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? PassengerRecord.from(rs) : null;
             }
-            e.printStackTrace();
-            return false;
-        } finally {
-            try {
-                conn.setAutoCommit(true);
-            } catch (SQLException e) {
-                e.printStackTrace();
+        } catch (SQLException e) {
+            metrics.failed("getPassenger", e);
+            return null;
+        }
+    }
+
+    /**
+     * Latency histograms and counters for every operation of this handler
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Resident filters that screen passport, contact and email uniqueness
+     */
+    public PassengerUniquenessIndex getUniquenessIndex() {
+        return uniqueness;
+    }
+
+    /**
+     * Hit, miss and eviction counters of the flight catalogue cache
+     */
+    public FlightCache getFlightCache() {
+        return flightCache;
+    }
+
+    /**
+     * Registers a listener for row-level changes made through this handler. Bookings are
+     * published in commit order while the write connection is still held, so a listener may read
+     * from the handler but must not write through it.
+     */
+    public void addChangeListener(DataChangeListener listener) {
+        changes.addListener(listener);
+    }
+
+    public void removeChangeListener(DataChangeListener listener) {
+        changes.removeListener(listener);
+    }
+
+    /**
+     * Books a passenger without waiting for the database.
+     * With the resident inventory enabled the seat is admitted in memory and the returned future
+     * completes once the write-behind batch holding the booking has committed; sold-out and
+     * unknown flights are refused immediately. With group commit enabled the booking is queued
+     * and the future completes once its group has committed. Otherwise the booking runs
+     * synchronously.
+     */
+    public CompletableFuture<BookingResult> bookPassengerAsync(String name, String passport, String contact,
+                                                               String email, int flightId) {
+        SeatInventory seats = inventory;
+        GroupCommitWriter group = groupCommit;
+        if (seats == null && group == null) {
+            return CompletableFuture.completedFuture(bookPassenger(name, passport, contact, email, flightId));
+        }
+        long started = System.nanoTime();
+        CompletableFuture<BookingResult> result;
+        BookingResult duplicate = findDuplicate(passport, contact, email);
+        if (duplicate != null) {
+            result = CompletableFuture.completedFuture(duplicate);
+        } else if (seats == null) {
+            result = group.submit(new BookingRequest(name, passport, contact, email, flightId));
+        } else if (seats.tryReserve(flightId)) {
+            result = writeBehind.submit(new BookingRequest(name, passport, contact, email, flightId));
+        } else {
+            result = CompletableFuture.completedFuture(
+                    seats.isTracked(flightId) ? BookingResult.NO_SEATS : BookingResult.UNKNOWN_FLIGHT);
+        }
+        return result.whenComplete((booking, error) -> {
+            metrics.recordSince("bookPassenger", started);
+            if (booking != null && booking != BookingResult.BOOKED) {
+                metrics.rejected(booking);
             }
+        });
+    }
+
+    /**
+     * Imports many passengers at once, {@code chunkSize} rows per transaction and JDBC batch.
+     * The returned report says, row by row, whether each passenger was accepted, was a duplicate,
+     * or was refused because the flight had no seat left or does not exist.
+     */
+    public BatchImportReport addPassengersBatch(Iterator<BookingRequest> passengers, int chunkSize) {
+        return addPassengersBatch(passengers, chunkSize, true);
+    }
+
+    public BatchImportReport addPassengersBatch(Stream<BookingRequest> passengers, int chunkSize) {
+        return addPassengersBatch(passengers.iterator(), chunkSize, true);
+    }
+
+    /**
+     * As {@link #addPassengersBatch(Iterator, int)}. With {@code bulkLoad} set, the per-row seat
+     * accounting trigger is suspended inside each chunk's transaction and passenger_count and
+     * available_seats are recomputed once per affected flight before commit. Other writers never
+     * see the trigger missing, because the write connection is held for the whole chunk.
+     */
+    public BatchImportReport addPassengersBatch(Iterator<BookingRequest> passengers, int chunkSize, boolean bulkLoad) {
+        long started = System.nanoTime();
+        BatchImportReport report = new PassengerBatchImporter(pool, inventory, bulkLoad, metrics).importAll(passengers, chunkSize);
+        metrics.recordSince("addPassengersBatch", started);
+        metrics.counter(Metrics.DUPLICATE_REJECTIONS).add(report.getDuplicates());
+        metrics.counter(Metrics.SOLD_OUT_REJECTIONS).add(report.getNoSeat());
+        if (report.getAccepted() > 0) {
+            changes.bulkChange();
+        }
+        return report;
+    }
+
+    /**
+     * Switches bookings to the resident seat inventory with write-behind persistence.
+     * Seat counts are first reconciled against the passengers table, so counts left stale by a
+     * crash are repaired before any booking is admitted. Has no effect once group commit is enabled.
+     */
+    public synchronized void enableResidentInventory(int batchSize, long flushMillis) {
+        if (inventory != null || groupCommit != null) {
+            return;
+        }
+        try (ConnectionPool.Lease lease = pool.write()) {
+            SeatInventory seats = new SeatInventory();
+            seats.reconcile(lease.connection());
+            writeBehind = new WriteBehindWriter(pool, seats, batchSize, flushMillis, this::publishBookings, metrics);
+            writeBehind.start();
+            inventory = seats;
+        } catch (SQLException e) {
+            metrics.failed("enableResidentInventory", e);
+        }
+    }
+
+    /**
+     * Sends bookings through a single writer thread that commits them in groups of up to
+     * {@code maxGroupSize}, waiting at most {@code maxWaitMillis} for a group to fill, so many
+     * bookings share one disk sync. Has no effect once the resident inventory is enabled, which
+     * batches its own writes.
+     */
+    public synchronized void enableGroupCommit(int maxGroupSize, long maxWaitMillis) {
+        if (groupCommit != null || inventory != null) {
+            return;
+        }
+        GroupCommitWriter writer = new GroupCommitWriter(pool, reservations, maxGroupSize, maxWaitMillis,
+                this::publishBookings, metrics);
+        writer.start();
+        groupCommit = writer;
+    }
+
+    /**
+     * Loads every flight and passenger into a {@link ColumnarStore} kept current by this handler's
+     * change events, and returns it. From then on {@link #countBookingsPerFlight} scans the store's
+     * columns instead of querying. Later calls return the same store.
+     */
+    public synchronized ColumnarStore enableReadModel() {
+        if (readModel == null) {
+            long started = System.nanoTime();
+            ColumnarStore store = new ColumnarStore();
+            // Listen first, so nothing committed during the load is missed; the store drops what it already read
+            addChangeListener(store);
+            store.load(this);
+            readModel = store;
+            metrics.recordSince("enableReadModel", started);
+        }
+        return readModel;
+    }
+
+    /**
+     * Builds the in-memory {@link RouteIndex} used by {@link #searchRoutes} and keeps it current
+     * from this handler's change events. Later calls return the same index.
+     */
+    public synchronized RouteIndex enableRouteIndex() {
+        if (routeIndex == null) {
+            long started = System.nanoTime();
+            RouteIndex index = new RouteIndex();
+            addChangeListener(index);
+            index.load(this);
+            routeIndex = index;
+            metrics.recordSince("enableRouteIndex", started);
         }
+        return routeIndex;
+    }
+
+    /**
+     * Flights from {@code source} to {@code destination} with at least {@code minSeats} seats
+     * free, most free seats first. Answered from the route index, built on first use.
+     */
+    public List<FlightRecord> searchRoutes(String source, String destination, int minSeats) {
+        RouteIndex index = enableRouteIndex();
+        long started = System.nanoTime();
+        List<FlightRecord> found = index.search(source, destination, minSeats);
+        metrics.recordSince("searchRoutes", started);
+        return found;
+    }
+
+    /**
+     * Builds the in-memory {@link PassengerSearchIndex} used by {@link #searchPassengers} and
+     * keeps it current from this handler's change events. Later calls return the same index.
+     */
+    public synchronized PassengerSearchIndex enableSearchIndex() {
+        if (searchIndex == null) {
+            long started = System.nanoTime();
+            PassengerSearchIndex index = new PassengerSearchIndex();
+            addChangeListener(index);
+            index.load(this);
+            searchIndex = index;
+            metrics.recordSince("enableSearchIndex", started);
+        }
+        return searchIndex;
+    }
+
+    public List<PassengerRecord> searchPassengers(String query, int limit) {
+        PassengerSearchIndex index = enableSearchIndex();
+        long started = System.nanoTime();
+        List<PassengerRecord> found = index.search(query, limit);
+        metrics.recordSince("searchPassengers", started);
+        return found;
     }
 
     /**
@@ -168,49 +726,39 @@ public class DatabaseHandler {
      */
     public List<String[]> getAllFlights() {
         List<String[]> flights = new ArrayList<>();
-        String sql = "SELECT flightId, flightName, source, destination, capacity, passenger_count, available_seats "
-                   + "FROM flights ORDER BY flightId";
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                flights.add(new String[] {
-                    String.valueOf(rs.getInt("flightId")),
-                    rs.getString("flightName"),
-                    rs.getString("source"),
-                    rs.getString("destination"),
-                    String.valueOf(rs.getInt("capacity")),
-                    String.valueOf(rs.getInt("passenger_count")),
-                    String.valueOf(rs.getInt("available_seats"))
-                });
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        for (FlightRecord flight : listFlights()) {
+            flights.add(flight.toArray());
         }
         return flights;
     }
 
+    /**
+     * Every flight in id order. Served from the flight cache once it holds the whole catalogue;
+     * otherwise read from the database and used to fill the cache. The list may be shared, so
+     * callers must not modify it.
+     */
+    public List<FlightRecord> listFlights() {
+        long started = System.nanoTime();
+        List<FlightRecord> cached = flightCache.getAll();
+        if (cached != null) {
+            metrics.recordSince("listFlights", started);
+            return cached;
+        }
+        long version = flightCache.version();
+        List<FlightRecord> flights = new ArrayList<>();
+        if (forEachRow("listFlights.database", ALL_FLIGHTS_SQL, DEFAULT_FETCH_SIZE, FlightRecord::from, flights::add)) {
+            flightCache.loadAll(flights, version);
+        }
+        metrics.recordSince("listFlights", started);
+        return flights;
+    }
+
     /**
      * Gets all passengers from the database
      */
     public List<String[]> getAllPassengers() {
         List<String[]> passengers = new ArrayList<>();
-        String sql = "SELECT passengerId, name, passportNumber, contactNumber, email, flightId "
-                   + "FROM passengers ORDER BY passengerId";
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                passengers.add(new String[] {
-                    String.valueOf(rs.getInt("passengerId")),
-                    rs.getString("name"),
-                    rs.getString("passportNumber"),
-                    rs.getString("contactNumber"),
-                    rs.getString("email"),
-                    String.valueOf(rs.getInt("flightId"))
-                });
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        forEachPassenger(DEFAULT_FETCH_SIZE, passenger -> passengers.add(passenger.toArray()));
         return passengers;
     }
 
@@ -219,38 +767,271 @@ public class DatabaseHandler {
      */
     public List<String[]> getPassengersWithFlights() {
         List<String[]> passengers = new ArrayList<>();
-        String sql = "SELECT p.passengerId, p.name, p.passportNumber, p.contactNumber, p.email, "
-                   + "f.flightId, f.flightName, f.source, f.destination, f.available_seats "
-                   + "FROM passengers p JOIN flights f ON p.flightId = f.flightId "
-                   + "ORDER BY p.passengerId";
-        try (Statement stmt = conn.createStatement();
+        forEachPassengerWithFlight(DEFAULT_FETCH_SIZE, passenger -> passengers.add(passenger.toArray()));
+        return passengers;
+    }
+
+    /**
+     * Up to {@code limit} flights with an id greater than {@code afterFlightId}, in id order.
+     * Pass 0 for the first page and the last id of the previous page after that.
+     */
+    public List<FlightRecord> getFlightsPage(int afterFlightId, int limit) {
+        List<FlightRecord> cached = flightCache.getPage(afterFlightId, limit);
+        if (cached != null) {
+            return cached;
+        }
+        return queryPage("getFlightsPage", FLIGHTS_PAGE_SQL, afterFlightId, limit, FlightRecord::from);
+    }
+
+    /**
+     * Up to {@code limit} passengers with an id greater than {@code afterPassengerId}, in id order
+     */
+    public List<PassengerRecord> getPassengersPage(int afterPassengerId, int limit) {
+        return queryPage("getPassengersPage", PASSENGERS_PAGE_SQL, afterPassengerId, limit, PassengerRecord::from);
+    }
+
+    /**
+     * Up to {@code limit} passengers joined with their flights, keyed on passengerId like
+     * {@link #getPassengersPage(int, int)}
+     */
+    public List<PassengerFlightRecord> getPassengersWithFlightsPage(int afterPassengerId, int limit) {
+        return queryPage("getPassengersWithFlightsPage", PASSENGERS_WITH_FLIGHTS_PAGE_SQL, afterPassengerId, limit, PassengerFlightRecord::from);
+    }
+
+    /**
+     * Up to {@code limit} flights starting at position {@code offset} in id order. Prefer
+     * {@link #getFlightsPage(int, int)} when the previous page's last id is known.
+     */
+    public List<FlightRecord> getFlightsAt(int offset, int limit) {
+        return queryPage("getFlightsAt", FLIGHTS_AT_SQL, limit, offset, FlightRecord::from);
+    }
+
+    public List<PassengerRecord> getPassengersAt(int offset, int limit) {
+        return queryPage("getPassengersAt", PASSENGERS_AT_SQL, limit, offset, PassengerRecord::from);
+    }
+
+    public List<PassengerFlightRecord> getPassengersWithFlightsAt(int offset, int limit) {
+        return queryPage("getPassengersWithFlightsAt", PASSENGERS_WITH_FLIGHTS_AT_SQL, limit, offset, PassengerFlightRecord::from);
+    }
+
+    public int countFlights() {
+        int cached = flightCache.countAll();
+        if (cached >= 0) {
+            return cached;
+        }
+        return count("countFlights", COUNT_FLIGHTS_SQL);
+    }
+
+    public int countPassengers() {
+        return count("countPassengers", COUNT_PASSENGERS_SQL);
+    }
+
+    public int countPassengersWithFlights() {
+        return count("countPassengersWithFlights", COUNT_PASSENGERS_WITH_FLIGHTS_SQL);
+    }
+
+    /**
+     * The highest passengerId in use, or 0 when there are no passengers
+     *
+     * @throws IllegalStateException if it can't be read, rather than passing the table off as empty
+     */
+    public int getMaxPassengerId() {
+        try {
+            return queryInt("getMaxPassengerId", MAX_PASSENGER_ID_SQL);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the highest passenger id", e);
+        }
+    }
+
+    /**
+     * Passengers per flight among those with {@code afterPassengerId < passengerId <= upToPassengerId},
+     * so a large table can be counted as several id ranges in parallel. Answered from the read
+     * model once {@link #enableReadModel} has been called.
+     *
+     * @throws IllegalStateException if the passengers can't be read, so a report fails instead of
+     *         counting the range as empty
+     */
+    public Map<Integer, Integer> countBookingsPerFlight(int afterPassengerId, int upToPassengerId) {
+        long started = System.nanoTime();
+        ColumnarStore store = readModel;
+        if (store != null) {
+            Map<Integer, Integer> bookings = store.countBookingsPerFlight(afterPassengerId, upToPassengerId);
+            metrics.recordSince("countBookingsPerFlight.readModel", started);
+            return bookings;
+        }
+        Map<Integer, Integer> bookings = new HashMap<>();
+        try (ConnectionPool.Lease lease = pool.read();
+             PreparedStatement stmt = lease.connection().prepareStatement(BOOKINGS_PER_FLIGHT_SQL)) {
+            stmt.setInt(1, afterPassengerId);
+            stmt.setInt(2, upToPassengerId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    bookings.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        } catch (SQLException e) {
+            metrics.failed("countBookingsPerFlight", e);
+            throw new IllegalStateException("Could not count bookings for passengers " + (afterPassengerId + 1)
+                    + " to " + upToPassengerId, e);
+        } finally {
+            metrics.recordSince("countBookingsPerFlight", started);
+        }
+        return bookings;
+    }
+
+    private int count(String op, String sql) {
+        try {
+            return queryInt(op, sql);
+        } catch (SQLException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * The single int {@code sql} returns, or 0 when it returns no row; failures are recorded and rethrown
+     */
+    private int queryInt(String op, String sql) throws SQLException {
+        long started = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.read();
+             Statement stmt = lease.connection().createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                passengers.add(new String[] {
-                    String.valueOf(rs.getInt("passengerId")),
-                    rs.getString("name"),
-                    rs.getString("passportNumber"),
-                    rs.getString("contactNumber"),
-                    rs.getString("email"),
-                    String.valueOf(rs.getInt("flightId")),
-                    rs.getString("flightName"),
-                    rs.getString("source"),
-                    rs.getString("destination"),
-                    String.valueOf(rs.getInt("available_seats"))
-                });
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            metrics.failed(op, e);
+            throw e;
+        } finally {
+            metrics.recordSince(op, started);
+        }
+    }
+
+    /**
+     * Hands every flight to {@code action} while the cursor advances, without building a list
+     */
+    public void forEachFlight(int fetchSize, Consumer<FlightRecord> action) {
+        forEachRow("forEachFlight", ALL_FLIGHTS_SQL, fetchSize, FlightRecord::from, action);
+    }
+
+    public void forEachPassenger(int fetchSize, Consumer<PassengerRecord> action) {
+        forEachRow("forEachPassenger", ALL_PASSENGERS_SQL, fetchSize, PassengerRecord::from, action);
+    }
+
+    public void forEachPassengerWithFlight(int fetchSize, Consumer<PassengerFlightRecord> action) {
+        forEachRow("forEachPassengerWithFlight", PASSENGERS_WITH_FLIGHTS_SQL, fetchSize, PassengerFlightRecord::from, action);
+    }
+
+    /**
+     * Lazily streams every passenger. The stream holds a read connection until it is closed,
+     * so use it in a try-with-resources block.
+     */
+    public Stream<PassengerRecord> streamPassengers(int fetchSize) {
+        return streamRows(ALL_PASSENGERS_SQL, fetchSize, PassengerRecord::from);
+    }
+
+    public Stream<PassengerFlightRecord> streamPassengersWithFlights(int fetchSize) {
+        return streamRows(PASSENGERS_WITH_FLIGHTS_SQL, fetchSize, PassengerFlightRecord::from);
+    }
+
+    private interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private <T> List<T> queryPage(String op, String sql, int first, int second, RowMapper<T> mapper) {
+        List<T> rows = new ArrayList<>();
+        long started = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.read();
+             PreparedStatement pstmt = lease.connection().prepareStatement(sql)) {
+            pstmt.setInt(1, first);
+            pstmt.setInt(2, second);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
+                }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            metrics.failed(op, e);
+        }
+        metrics.recordSince(op, started);
+        return rows;
+    }
+
+    /**
+     * Returns false if the query failed part way, in which case {@code action} saw only some rows
+     */
+    private <T> boolean forEachRow(String op, String sql, int fetchSize, RowMapper<T> mapper, Consumer<? super T> action) {
+        long started = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.read();
+             Statement stmt = lease.connection().createStatement()) {
+            stmt.setFetchSize(fetchSize);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    action.accept(mapper.map(rs));
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            metrics.failed(op, e);
+            return false;
+        } finally {
+            metrics.recordSince(op, started);
+        }
+    }
+
+    private <T> Stream<T> streamRows(String sql, int fetchSize, RowMapper<T> mapper) {
+        ConnectionPool.Lease lease = null;
+        Statement stmt = null;
+        try {
+            lease = pool.read();
+            stmt = lease.connection().createStatement();
+            stmt.setFetchSize(fetchSize);
+            ResultSet rs = stmt.executeQuery(sql);
+            Statement openStmt = stmt;
+            ConnectionPool.Lease openLease = lease;
+            Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        action.accept(mapper.map(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("Failed reading row from " + sql, e);
+                    }
+                }
+            };
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                try {
+                    openStmt.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                } finally {
+                    openLease.close();
+                }
+            });
+        } catch (SQLException e) {
+            metrics.failed("streamRows", e);
+            try {
+                if (stmt != null) {
+                    stmt.close();
+                }
+            } catch (SQLException ex) {
+                ex.printStackTrace();
+            }
+            if (lease != null) {
+                lease.close();
+            }
+            return Stream.empty();
         }
-        return passengers;
     }
 
    
     public List<String[]> getPassengersByFlightId(int flightId) {
         List<String[]> passengers = new ArrayList<>();
-        String sql = "SELECT name, passportNumber, contactNumber, email "
-                   + "FROM passengers WHERE flightId = ? ORDER BY name";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        long started = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.read();
+             PreparedStatement pstmt = lease.connection().prepareStatement(PASSENGERS_BY_FLIGHT_SQL)) {
             pstmt.setInt(1, flightId);
             try (ResultSet rs = pstmt.executeQuery()) {
                 while (rs.next()) {
@@ -263,18 +1044,18 @@ public class DatabaseHandler {
                 }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            metrics.failed("getPassengersByFlightId", e);
         }
+        metrics.recordSince("getPassengersByFlightId", started);
         return passengers;
     }
  
     public List<String[]> getUnionExample() {
         List<String[]> result = new ArrayList<>();
-        String sql = "SELECT flightId, flightName, source, destination FROM flights WHERE capacity > 50 "
-                   + "UNION "
-                   + "SELECT flightId, flightName, source, destination FROM flights WHERE available_seats < 20";
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        long started = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.read();
+             Statement stmt = lease.connection().createStatement();
+             ResultSet rs = stmt.executeQuery(UNION_EXAMPLE_SQL)) {
             while (rs.next()) {
                 result.add(new String[] {
                     String.valueOf(rs.getInt("flightId")),
@@ -284,61 +1065,88 @@ public class DatabaseHandler {
                 });
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            metrics.failed("getUnionExample", e);
         }
+        metrics.recordSince("getUnionExample", started);
         return result;
     }
 
-    // Helper methods
+    // Helper methods; the uniqueness index answers most of these without a query
     public boolean passportExists(String passport) {
-        return checkExists("passportNumber", passport);
+        return confirmedDuplicate(uniqueness.mightContainPassport(passport), PASSPORT_EXISTS_SQL, passport);
     }
 
     public boolean contactExists(String contact) {
-        return checkExists("contactNumber", contact);
+        return confirmedDuplicate(uniqueness.mightContainContact(contact), CONTACT_EXISTS_SQL, contact);
     }
 
     public boolean emailExists(String email) {
-        return checkExists("email", email);
+        return confirmedDuplicate(uniqueness.mightContainEmail(email), EMAIL_EXISTS_SQL, email);
     }
 
     public boolean flightExists(int flightId) {
-        return checkExists("flightId", String.valueOf(flightId));
+        return checkExists("flightExists", FLIGHT_HAS_PASSENGERS_SQL, flightId);
     }
 
     public boolean hasAvailableSeats(int flightId) {
-        String sql = "SELECT available_seats FROM flights WHERE flightId = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        long started = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.read();
+             PreparedStatement stmt = lease.connection().prepareStatement(AVAILABLE_SEATS_SQL)) {
             stmt.setInt(1, flightId);
             try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next() && rs.getInt("available_seats") > 0;
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            metrics.failed("hasAvailableSeats", e);
             return false;
+        } finally {
+            metrics.recordSince("hasAvailableSeats", started);
         }
     }
 
-    private boolean checkExists(String column, String value) {
-        String sql = "SELECT 1 FROM passengers WHERE " + column + " = ? LIMIT 1";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, value);
+    private boolean checkExists(String op, String sql, Object value) {
+        long started = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.read();
+             PreparedStatement stmt = lease.connection().prepareStatement(sql)) {
+            stmt.setObject(1, value);
             try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next();
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            metrics.failed(op, e);
             return false;
+        } finally {
+            metrics.recordSince(op, started);
         }
     }
 
+    /**
+     * Execution counts and latency of every statement this handler has run
+     */
+    public StatementStats getStatementStats() {
+        return pool.getStatementStats();
+    }
+
     public void closeConnection() {
+        // Let the warm-up finish its reads rather than fail them by closing the pool underneath
         try {
-            if (conn != null && !conn.isClosed()) {
-                conn.close();
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+            warmUp.join();
+        } catch (RuntimeException e) {
+            // already counted by the warm-up itself
+        }
+        if (writeBehind != null) {
+            writeBehind.shutdown();
+        }
+        if (groupCommit != null) {
+            groupCommit.shutdown();
+        }
+        if (pool != null) {
+            pool.close();
+        }
+        if (metricsReporter != null) {
+            metricsReporter.stop();
         }
+        MetricsMBean.unregister(metricsName);
+        metricsName = null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a SQL constant whose query plan is allowed to scan whole tables, for
+ * {@link QueryPlanAudit}. List the table names or aliases that may be scanned; a scan of
+ * anything else is still reported as a regression.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface ExpectedFullScan {
+    String[] value();
+
+    String reason() default "";
+}
@@ -1,23 +1,69 @@
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 public class FlightBookingGUI {
     private DatabaseHandler dbHandler;
+    private BookingService bookingService;
     private JFrame frame;
     private JTabbedPane tabbedPane;
     private JTextField flightNameField, sourceField, destinationField, capacityField;
     private JTextField passengerNameField, passportField, contactField, emailField;
     private JComboBox<String> flightDropdown;
     private JTable flightsTable, passengersTable, viewTable;
-    private DefaultTableModel flightsTableModel, passengersTableModel, viewTableModel;
+    private PagedTableModel<FlightRecord> flightsTableModel;
+    private PagedTableModel<PassengerRecord> passengersTableModel;
+    private DefaultTableModel viewTableModel;
     private JLabel passengerCountLabel;
+    private JLabel statusLabel;
+    private JLabel metricsLabel;
+    private JProgressBar busyIndicator;
+    private JComboBox<String> flightSelector;
+    private JButton addFlightButton, addPassengerButton;
+    private final AsyncDataAccess async = new AsyncDataAccess();
+    private final ExecutorService reportExecutor = TaskExecutors.newBlockingIoExecutor("occupancy-report", 4);
+    private final long launchedNanos;
+    private long firstFrameNanos;
+    private boolean firstBookingRecorded;
+    private JLabel loadingLabel;
+
+    public static final String HTTP_PORT_PROPERTY = "airport.http.port";
+    public static final String HTTP_HOST_PROPERTY = "airport.http.host";
 
     public FlightBookingGUI() {
-        dbHandler = new DatabaseHandler();
+        this(CompletableFuture.completedFuture(new DatabaseHandler()), System.nanoTime());
+    }
+
+    /**
+     * Shows the window straight away and fills in its tabs once {@code opening} completes, so
+     * opening or migrating the database never holds up the EDT. Startup times are measured from
+     * {@code launchedNanos}.
+     */
+    public FlightBookingGUI(CompletableFuture<DatabaseHandler> opening, long launchedNanos) {
+        this.launchedNanos = launchedNanos;
         initialize();
+        opening.whenComplete((handler, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                loadingLabel.setText("The database could not be opened.");
+                busyIndicator.setVisible(false);
+                showError(error);
+                return;
+            }
+            attach(handler);
+            startHttpApi();
+        }));
     }
 
     private void initialize() {
@@ -26,6 +72,27 @@ public class FlightBookingGUI {
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setLayout(new BorderLayout());
 
+        loadingLabel = new JLabel("Opening database...", SwingConstants.CENTER);
+        loadingLabel.setFont(new Font("Segoe UI", Font.PLAIN, 16));
+        frame.add(loadingLabel, BorderLayout.CENTER);
+        frame.add(createStatusBar(), BorderLayout.SOUTH);
+        statusLabel.setText("Status: Opening database...");
+        busyIndicator.setVisible(true);
+
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+        // Runs once the frame has been laid out and painted and the EDT is free for input
+        SwingUtilities.invokeLater(() -> firstFrameNanos = System.nanoTime() - launchedNanos);
+    }
+
+    /**
+     * Builds the tabs on the opened handler, in place of the loading message, and starts loading
+     * their data
+     */
+    private void attach(DatabaseHandler handler) {
+        dbHandler = handler;
+        bookingService = new BookingService(dbHandler);
+
         // Create tabbed pane for better organization
         tabbedPane = new JTabbedPane();
         tabbedPane.setFont(new Font("Segoe UI", Font.BOLD, 14));
@@ -36,14 +103,77 @@ public class FlightBookingGUI {
         tabbedPane.addTab("View Data", createViewPanel());
         tabbedPane.addTab("Advanced Features", createAdvancedPanel());
 
+        frame.remove(loadingLabel);
         frame.add(tabbedPane, BorderLayout.CENTER);
-        frame.add(createStatusBar(), BorderLayout.SOUTH);
+        frame.revalidate();
+        frame.repaint();
+        statusLabel.setText("Status: Ready");
+        busyIndicator.setVisible(async.isBusy());
+        dbHandler.getMetrics().timer(Metrics.STARTUP_FIRST_FRAME).record(firstFrameNanos);
+        SwingUtilities.invokeLater(() -> dbHandler.getMetrics().recordSince(Metrics.STARTUP_INTERACTIVE, launchedNanos));
+
+        dbHandler.addChangeListener(new DataChangeListener() {
+            @Override
+            public void flightAdded(FlightRecord flight) {
+                SwingUtilities.invokeLater(() -> {
+                    flightsTableModel.appendRow(flight);
+                    flightDropdown.addItem(flightLabel(flight));
+                    flightSelector.addItem(flight.getFlightId() + " - " + flight.getFlightName());
+                });
+            }
 
-        frame.setLocationRelativeTo(null);
-        frame.setVisible(true);
+            @Override
+            public void flightChanged(FlightRecord flight) {
+                SwingUtilities.invokeLater(() -> {
+                    flightsTableModel.updateRow(flight);
+                    replaceFlightItem(flight);
+                });
+            }
+
+            @Override
+            public void passengerAdded(PassengerRecord passenger) {
+                SwingUtilities.invokeLater(() -> passengersTableModel.appendRow(passenger));
+            }
+
+            @Override
+            public void bulkChange() {
+                SwingUtilities.invokeLater(() -> {
+                    updateFlightDropdown();
+                    refreshFlightsTable();
+                    refreshPassengersTable();
+                });
+            }
+        });
+        passengersTableModel.addTableModelListener(e ->
+                passengerCountLabel.setText("Passengers: " + passengersTableModel.getRowCount()));
 
         updateFlightDropdown();
         refreshFlightsTable();
+        refreshPassengersTable();
+    }
+
+    /**
+     * Serves the booking API next to the window when -Dairport.http.port is set, so scripts and
+     * other clients book against the same database and see their bookings appear here. It listens on
+     * loopback only unless -Dairport.http.host names another interface.
+     */
+    private void startHttpApi() {
+        Integer port = Integer.getInteger(HTTP_PORT_PROPERTY);
+        if (port == null) {
+            return;
+        }
+        try {
+            BookingHttpServer http = new BookingHttpServer(bookingService, System.getProperty(HTTP_HOST_PROPERTY), port);
+            http.start();
+            statusLabel.setText("Status: Ready, booking API on " + http.getHost() + ":" + http.getPort());
+        } catch (IOException e) {
+            showError(e);
+        }
+    }
+
+    private void showError(Throwable error) {
+        error.printStackTrace();
+        JOptionPane.showMessageDialog(frame, "Database error: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
     }
 
     private JPanel createStatusBar() {
@@ -51,16 +181,60 @@ public class FlightBookingGUI {
         statusPanel.setBorder(new EmptyBorder(5, 10, 5, 10));
         statusPanel.setBackground(new Color(240, 240, 240));
 
-        JLabel statusLabel = new JLabel("Status: Ready");
+        statusLabel = new JLabel("Status: Ready");
         passengerCountLabel = new JLabel("Passengers: 0");
+        busyIndicator = new JProgressBar();
+        busyIndicator.setIndeterminate(true);
+        busyIndicator.setPreferredSize(new Dimension(80, 12));
+        busyIndicator.setVisible(false);
+
+        async.addBusyListener((busy, running) -> {
+            statusLabel.setText(busy ? "Status: Loading (" + running + ")..." : "Status: Ready");
+            busyIndicator.setVisible(busy);
+        });
 
         statusPanel.add(statusLabel);
+        statusPanel.add(busyIndicator);
         statusPanel.add(new JSeparator(SwingConstants.VERTICAL));
         statusPanel.add(passengerCountLabel);
 
+        metricsLabel = new JLabel();
+        statusPanel.add(new JSeparator(SwingConstants.VERTICAL));
+        statusPanel.add(metricsLabel);
+        Timer metricsTimer = new Timer(1000, e -> updateMetricsLabel());
+        metricsTimer.setInitialDelay(0);
+        metricsTimer.start();
+
         return statusPanel;
     }
 
+    private void updateMetricsLabel() {
+        if (dbHandler == null) {
+            return; // still opening
+        }
+        Metrics metrics = dbHandler.getMetrics();
+        LatencyHistogram bookings = metrics.timer("bookPassenger");
+        LatencyHistogram writeWait = metrics.timer(Metrics.WRITE_WAIT);
+        metricsLabel.setText(String.format("Bookings: %d (p99 %.1f ms) | Rejected: %d duplicate, %d sold out"
+                        + " | Rollbacks: %d | Busy retries: %d | Errors: %d | Write wait p99: %.1f ms%s",
+                bookings.getCount(), bookings.getValueAtPercentile(99) / 1e6,
+                metrics.count(Metrics.DUPLICATE_REJECTIONS), metrics.count(Metrics.SOLD_OUT_REJECTIONS),
+                metrics.count(Metrics.ROLLBACKS), metrics.count(Metrics.BUSY_RETRIES),
+                metrics.count(Metrics.ERRORS), writeWait.getValueAtPercentile(99) / 1e6, startupText(metrics)));
+    }
+
+    private static String startupText(Metrics metrics) {
+        LatencyHistogram firstFrame = metrics.timer(Metrics.STARTUP_FIRST_FRAME);
+        LatencyHistogram interactive = metrics.timer(Metrics.STARTUP_INTERACTIVE);
+        LatencyHistogram firstBooking = metrics.timer(Metrics.STARTUP_FIRST_BOOKING);
+        if (interactive.getCount() == 0) {
+            return "";
+        }
+        return String.format(" | Window in %d ms, ready in %d ms%s", firstFrame.getMax() / 1_000_000,
+                interactive.getMax() / 1_000_000,
+                firstBooking.getCount() == 0 ? "" : String.format(", first booking at %d ms", firstBooking.getMax() / 1_000_000));
+    }
+
     private JPanel createFlightPanel() {
         JPanel panel = new JPanel(new BorderLayout(10, 10));
         panel.setBorder(new EmptyBorder(15, 15, 15, 15));
@@ -88,11 +262,12 @@ public class FlightBookingGUI {
         formPanel.add(capacityField);
 
         // Add flight button
-        JButton addFlightButton = createStyledButton("Add Flight", new Color(70, 130, 180));
+        addFlightButton = createStyledButton("Add Flight", new Color(70, 130, 180));
         addFlightButton.addActionListener(e -> addFlight());
 
         // Table for flights
-        flightsTableModel = new DefaultTableModel(new Object[]{"ID", "Flight Name", "Source", "Destination", "Capacity", "Passengers", "Available Seats"}, 0);
+        flightsTableModel = PagedTableModel.forFlights(dbHandler);
+        flightsTableModel.setAsync(async, "flightsTable");
         flightsTable = new JTable(flightsTableModel);
         flightsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         JScrollPane tableScrollPane = new JScrollPane(flightsTable);
@@ -146,11 +321,12 @@ public class FlightBookingGUI {
         formPanel.add(flightDropdown);
 
         // Add passenger button
-        JButton addPassengerButton = createStyledButton("Add Passenger", new Color(70, 130, 180));
+        addPassengerButton = createStyledButton("Add Passenger", new Color(70, 130, 180));
         addPassengerButton.addActionListener(e -> addPassenger());
 
         // Table for passengers
-        passengersTableModel = new DefaultTableModel(new Object[]{"Name", "Passport", "Contact", "Email", "Flight ID"}, 0);
+        passengersTableModel = PagedTableModel.forPassengers(dbHandler);
+        passengersTableModel.setAsync(async, "passengersTable");
         passengersTable = new JTable(passengersTableModel);
         passengersTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         JScrollPane tableScrollPane = new JScrollPane(passengersTable);
@@ -194,6 +370,28 @@ public class FlightBookingGUI {
         viewOptionsPanel.add(viewPassengersWithFlightsBtn);
         viewOptionsPanel.add(viewAllFlightsBtn);
 
+        // Type-ahead passenger search; each keystroke replaces the previous search
+        JTextField searchField = new JTextField(20);
+        searchField.setToolTipText("Name, passport or email");
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchPassengers(searchField.getText());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchPassengers(searchField.getText());
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchPassengers(searchField.getText());
+            }
+        });
+        viewOptionsPanel.add(new JLabel("Search passengers:"));
+        viewOptionsPanel.add(searchField);
+
         // Results table
         viewTableModel = new DefaultTableModel();
         viewTable = new JTable(viewTableModel);
@@ -228,16 +426,10 @@ public class FlightBookingGUI {
         cursorPanel.setBorder(BorderFactory.createTitledBorder("Cursor-Based Query"));
         cursorPanel.setBackground(new Color(245, 245, 245));
 
-        JComboBox<String> flightSelector = new JComboBox<>();
+        flightSelector = new JComboBox<>();
         flightSelector.setBackground(Color.WHITE);
         flightSelector.setFont(new Font("Segoe UI", Font.PLAIN, 14));
 
-        // Populate flight selector
-        List<String[]> flights = dbHandler.getAllFlights();
-        for (String[] flight : flights) {
-            flightSelector.addItem(flight[0] + " - " + flight[1]);
-        }
-
         JButton viewPassengersByFlightButton = createStyledButton("View Passengers by Flight", new Color(60, 179, 113));
         viewPassengersByFlightButton.addActionListener(e -> {
             String selected = (String) flightSelector.getSelectedItem();
@@ -257,14 +449,69 @@ public class FlightBookingGUI {
 
         cursorPanel.add(cursorControls, BorderLayout.NORTH);
 
+        // Route search section
+        JPanel routePanel = new JPanel(new BorderLayout(10, 10));
+        routePanel.setBorder(BorderFactory.createTitledBorder("Route Search"));
+        routePanel.setBackground(new Color(245, 245, 245));
+
+        JTextField routeSourceField = createStyledTextField();
+        JTextField routeDestinationField = createStyledTextField();
+        JTextField minSeatsField = createStyledTextField();
+        minSeatsField.setText("1");
+
+        JPanel routeFields = new JPanel(new GridLayout(1, 0, 10, 10));
+        routeFields.setBackground(new Color(245, 245, 245));
+        routeFields.add(new JLabel("From:"));
+        routeFields.add(routeSourceField);
+        routeFields.add(new JLabel("To:"));
+        routeFields.add(routeDestinationField);
+        routeFields.add(new JLabel("Min seats:"));
+        routeFields.add(minSeatsField);
+
+        JButton searchRoutesButton = createStyledButton("Search Flights", new Color(60, 179, 113));
+        searchRoutesButton.addActionListener(e -> {
+            try {
+                int minSeats = minSeatsField.getText().trim().isEmpty() ? 1 : Integer.parseInt(minSeatsField.getText().trim());
+                showRouteSearch(routeSourceField.getText(), routeDestinationField.getText(), minSeats);
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(frame, "Min seats must be a number!", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+
+        routePanel.add(routeFields, BorderLayout.CENTER);
+        routePanel.add(searchRoutesButton, BorderLayout.EAST);
+
         // Layout
         JPanel featuresPanel = new JPanel();
         featuresPanel.setLayout(new BoxLayout(featuresPanel, BoxLayout.Y_AXIS));
         featuresPanel.add(unionPanel);
         featuresPanel.add(Box.createVerticalStrut(15));
         featuresPanel.add(cursorPanel);
+        featuresPanel.add(Box.createVerticalStrut(15));
+        featuresPanel.add(routePanel);
+
+        // Occupancy report section
+        JPanel reportPanel = new JPanel(new BorderLayout(10, 10));
+        reportPanel.setBorder(BorderFactory.createTitledBorder("Occupancy Report"));
+        reportPanel.setBackground(new Color(245, 245, 245));
+
+        JTextArea reportArea = new JTextArea();
+        reportArea.setEditable(false);
+        reportArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        JProgressBar reportProgress = new JProgressBar(0, 100);
+        reportProgress.setStringPainted(true);
+        JButton reportButton = createStyledButton("Run Occupancy Report", new Color(60, 179, 113));
+        reportButton.addActionListener(e -> runOccupancyReport(reportButton, reportProgress, reportArea));
+
+        JPanel reportControls = new JPanel(new BorderLayout(10, 10));
+        reportControls.add(reportButton, BorderLayout.WEST);
+        reportControls.add(reportProgress, BorderLayout.CENTER);
+
+        reportPanel.add(reportControls, BorderLayout.NORTH);
+        reportPanel.add(new JScrollPane(reportArea), BorderLayout.CENTER);
 
         panel.add(featuresPanel, BorderLayout.NORTH);
+        panel.add(reportPanel, BorderLayout.CENTER);
 
         return panel;
     }
@@ -286,31 +533,56 @@ public class FlightBookingGUI {
         button.setBorder(BorderFactory.createEmptyBorder(8, 15, 8, 15));
         return button;
     }
+    /**
+     * Reloads both flight combo boxes: the booking dropdown and the advanced tab's selector
+     */
     private void updateFlightDropdown() {
-        flightDropdown.removeAllItems();
-        List<String[]> flights = dbHandler.getAllFlights();
-        for (String[] flight : flights) {
-            if (flight.length >= 2) {
-                String flightInfo = flight[0] + " - " + flight[1] + " (" + flight[6] + " seats available)";
-                flightDropdown.addItem(flightInfo);
+        async.load("flightDropdown", dbHandler::getAllFlights, flights -> {
+            flightDropdown.removeAllItems();
+            flightSelector.removeAllItems();
+            for (String[] flight : flights) {
+                if (flight.length >= 2) {
+                    String flightInfo = flightLabel(flight[0], flight[1], flight[6]);
+                    flightDropdown.addItem(flightInfo);
+                    flightSelector.addItem(flight[0] + " - " + flight[1]);
+                }
+            }
+        }, this::showError);
+    }
+
+    private static String flightLabel(String flightId, String flightName, String availableSeats) {
+        return flightId + " - " + flightName + " (" + availableSeats + " seats available)";
+    }
+
+    private static String flightLabel(FlightRecord flight) {
+        return flightLabel(String.valueOf(flight.getFlightId()), flight.getFlightName(),
+                String.valueOf(flight.getAvailableSeats()));
+    }
+
+    /**
+     * Rewrites one flight's entry in the booking dropdown, keeping the current selection
+     */
+    private void replaceFlightItem(FlightRecord flight) {
+        String prefix = flight.getFlightId() + " - ";
+        for (int i = 0; i < flightDropdown.getItemCount(); i++) {
+            if (flightDropdown.getItemAt(i).startsWith(prefix)) {
+                boolean selected = flightDropdown.getSelectedIndex() == i;
+                flightDropdown.insertItemAt(flightLabel(flight), i);
+                flightDropdown.removeItemAt(i + 1);
+                if (selected) {
+                    flightDropdown.setSelectedIndex(i);
+                }
+                return;
             }
         }
     }
 
     private void refreshFlightsTable() {
-        flightsTableModel.setRowCount(0);
-        List<String[]> flights = dbHandler.getAllFlights();
-        for (String[] flight : flights) {
-            flightsTableModel.addRow(flight);
-        }
+        flightsTableModel.refresh();
     }
 
     private void refreshPassengersTable() {
-        passengersTableModel.setRowCount(0);
-        List<String[]> passengers = dbHandler.getAllPassengers();
-        for (String[] passenger : passengers) {
-            passengersTableModel.addRow(passenger);
-        }
+        passengersTableModel.refresh();
     }
 
     private void addFlight() {
@@ -332,16 +604,22 @@ public class FlightBookingGUI {
                 JOptionPane.showMessageDialog(frame, "Capacity set to minimum 100 seats.");
             }
 
-            dbHandler.addFlight(flightName, source, destination, capacity);
-            updateFlightDropdown();
-            refreshFlightsTable();
-            JOptionPane.showMessageDialog(frame, "Flight added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+            int finalCapacity = capacity;
+            // One write at a time: the button comes back once this one has been reported
+            addFlightButton.setEnabled(false);
+            async.write(() -> bookingService.addFlight(flightName, source, destination, finalCapacity), done -> {
+                addFlightButton.setEnabled(true);
+                JOptionPane.showMessageDialog(frame, "Flight added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
 
-            // Clear fields
-            flightNameField.setText("");
-            sourceField.setText("");
-            destinationField.setText("");
-            capacityField.setText("100");
+                // Clear fields
+                flightNameField.setText("");
+                sourceField.setText("");
+                destinationField.setText("");
+                capacityField.setText("100");
+            }, error -> {
+                addFlightButton.setEnabled(true);
+                showError(error);
+            });
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(frame, "Capacity must be a number!", "Error", JOptionPane.ERROR_MESSAGE);
         }
@@ -354,7 +632,11 @@ public class FlightBookingGUI {
             return;
         }
 
-        int flightId = Integer.parseInt(flightsTableModel.getValueAt(selectedRow, 0).toString());
+        FlightRecord flight = flightsTableModel.getRow(selectedRow);
+        if (flight == null) {
+            return; // row still loading
+        }
+        int flightId = flight.getFlightId();
         int confirm = JOptionPane.showConfirmDialog(frame, 
                 "Are you sure you want to delete this flight and all its passengers?", 
                 "Confirm Deletion", JOptionPane.YES_NO_OPTION);
@@ -380,42 +662,38 @@ public class FlightBookingGUI {
             return;
         }
 
+        int flightId;
         try {
-            if (dbHandler.passportExists(passport)) {
-                JOptionPane.showMessageDialog(frame, "Passport number already exists.", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
+            flightId = Integer.parseInt(selectedFlight.split(" - ")[0].trim());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(frame, "Invalid flight selected.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
 
-            if (dbHandler.contactExists(contact)) {
-                JOptionPane.showMessageDialog(frame, "Contact number already exists.", "Error", JOptionPane.ERROR_MESSAGE);
+        // Duplicates and sold-out flights are detected by the booking itself
+        BookingRequest request = new BookingRequest(name, passport, contact, email, flightId);
+        addPassengerButton.setEnabled(false);
+        async.write(() -> bookingService.book(request), result -> {
+            addPassengerButton.setEnabled(true);
+            if (result != BookingResult.BOOKED) {
+                JOptionPane.showMessageDialog(frame, result.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
-
-            if (dbHandler.emailExists(email)) {
-                JOptionPane.showMessageDialog(frame, "Email already exists.", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
+            if (!firstBookingRecorded) {
+                firstBookingRecorded = true;
+                dbHandler.getMetrics().recordSince(Metrics.STARTUP_FIRST_BOOKING, launchedNanos);
             }
+            JOptionPane.showMessageDialog(frame, result.getMessage(), "Success", JOptionPane.INFORMATION_MESSAGE);
 
-            int flightId = Integer.parseInt(selectedFlight.split(" - ")[0].trim());
-            boolean success = dbHandler.addPassenger(name, passport, contact, email, flightId);
-
-            if (success) {
-                JOptionPane.showMessageDialog(frame, "Passenger added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                updateFlightDropdown();
-                refreshPassengersTable();
-                refreshFlightsTable();
-
-                // Clear fields
-                passengerNameField.setText("");
-                passportField.setText("");
-                contactField.setText("");
-                emailField.setText("");
-            } else {
-                JOptionPane.showMessageDialog(frame, "Failed to add passenger. No available seats.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
-        } catch (Exception e) {
+            // Clear fields
+            passengerNameField.setText("");
+            passportField.setText("");
+            contactField.setText("");
+            emailField.setText("");
+        }, e -> {
+            addPassengerButton.setEnabled(true);
             JOptionPane.showMessageDialog(frame, "Error adding passenger: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
 
     private void deleteSelectedPassenger() {
@@ -425,7 +703,11 @@ public class FlightBookingGUI {
             return;
         }
 
-        String passport = passengersTableModel.getValueAt(selectedRow, 1).toString();
+        PassengerRecord passenger = passengersTableModel.getRow(selectedRow);
+        if (passenger == null) {
+            return; // row still loading
+        }
+        String passport = passenger.getPassportNumber();
         int confirm = JOptionPane.showConfirmDialog(frame, 
                 "Are you sure you want to delete this passenger?", 
                 "Confirm Deletion", JOptionPane.YES_NO_OPTION);
@@ -440,75 +722,134 @@ public class FlightBookingGUI {
     }
 
     private void showAllPassengers() {
-        viewTableModel.setRowCount(0);
-        viewTableModel.setColumnIdentifiers(new String[]{
-            "Passenger ID", "Name", "Passport", "Contact", "Email", "Flight ID"
-        });
-
-        List<String[]> passengers = dbHandler.getAllPassengers();
-        for (String[] passenger : passengers) {
-            viewTableModel.addRow(passenger);
-        }
+        async.cancel("viewTable");
+        PagedTableModel<PassengerRecord> model = PagedTableModel.forPassengers(dbHandler);
+        model.setAsync(async, "viewTable");
+        model.refresh();
+        viewTable.setModel(model);
         tabbedPane.setSelectedIndex(2); // Switch to view tab
     }
 
     private void showPassengersWithFlights() {
-        viewTableModel.setRowCount(0);
-        viewTableModel.setColumnIdentifiers(new String[]{
-            "Passenger ID", "Name", "Passport", "Contact", "Email",
-            "Flight ID", "Flight Name", "Source", "Destination", "Available Seats"
-        });
+        async.cancel("viewTable");
+        PagedTableModel<PassengerFlightRecord> model = PagedTableModel.forPassengersWithFlights(dbHandler);
+        model.setAsync(async, "viewTable");
+        model.refresh();
+        viewTable.setModel(model);
+        tabbedPane.setSelectedIndex(2); // Switch to view tab
+    }
 
-        List<String[]> passengers = dbHandler.getPassengersWithFlights();
-        for (String[] passenger : passengers) {
-            viewTableModel.addRow(passenger);
+    /**
+     * Puts the shared result model back on the view table after a paged view was shown
+     */
+    private void resetViewTable() {
+        if (viewTable.getModel() != viewTableModel) {
+            viewTable.setModel(viewTableModel);
         }
+        viewTableModel.setRowCount(0);
+    }
+
+    /**
+     * Loads {@code query} in the background and shows its rows in the view table, replacing
+     * whatever view query was still running
+     */
+    private void showRows(String[] columns, Callable<List<String[]>> query) {
+        async.load("viewTable", query, rows -> {
+            resetViewTable();
+            viewTableModel.setColumnIdentifiers(columns);
+            for (String[] row : rows) {
+                viewTableModel.addRow(row);
+            }
+        }, this::showError);
         tabbedPane.setSelectedIndex(2); // Switch to view tab
     }
 
     private void showAllFlights() {
-        viewTableModel.setRowCount(0);
-        viewTableModel.setColumnIdentifiers(new String[]{
-            "Flight ID", "Flight Name", "Source", "Destination", 
+        showRows(new String[]{
+            "Flight ID", "Flight Name", "Source", "Destination",
             "Capacity", "Passengers", "Available Seats"
-        });
-
-        List<String[]> flights = dbHandler.getAllFlights();
-        for (String[] flight : flights) {
-            viewTableModel.addRow(flight);
-        }
-        tabbedPane.setSelectedIndex(2); // Switch to view tab
+        }, dbHandler::getAllFlights);
     }
 
     private void showPassengersByFlight(int flightId) {
-        viewTableModel.setRowCount(0);
-        viewTableModel.setColumnIdentifiers(new String[]{
+        showRows(new String[]{
             "Name", "Passport", "Contact", "Email"
-        });
+        }, () -> dbHandler.getPassengersByFlightId(flightId));
+    }
 
-        List<String[]> passengers = dbHandler.getPassengersByFlightId(flightId);
-        for (String[] passenger : passengers) {
-            viewTableModel.addRow(passenger);
+    private void searchPassengers(String query) {
+        if (query.trim().isEmpty()) {
+            async.cancel("viewTable");
+            resetViewTable();
+            return;
         }
-        tabbedPane.setSelectedIndex(2); // Switch to view tab
+        showRows(new String[]{
+            "Passenger ID", "Name", "Passport", "Contact", "Email", "Flight ID"
+        }, () -> {
+            List<String[]> rows = new ArrayList<>();
+            for (PassengerRecord passenger : bookingService.searchPassengers(query, PassengerSearchIndex.DEFAULT_LIMIT)) {
+                rows.add(passenger.toArray());
+            }
+            return rows;
+        });
     }
 
-    private void showUnionExample() {
-        viewTableModel.setRowCount(0);
-        viewTableModel.setColumnIdentifiers(new String[]{"Flight ID", "Flight Name", "Source", "Destination"});
+    private void showRouteSearch(String source, String destination, int minSeats) {
+        showRows(new String[]{
+            "Flight ID", "Flight Name", "Source", "Destination",
+            "Capacity", "Passengers", "Available Seats"
+        }, () -> {
+            List<String[]> rows = new ArrayList<>();
+            for (FlightRecord flight : bookingService.searchRoutes(source, destination, minSeats)) {
+                rows.add(flight.toArray());
+            }
+            return rows;
+        });
+    }
 
-        List<String[]> result = dbHandler.getUnionExample();
-        for (String[] row : result) {
-            viewTableModel.addRow(row);
-        }
-        tabbedPane.setSelectedIndex(2); // Switch to view tab
+    /**
+     * Counts passengers per flight in parallel and redraws the report as each id range comes in.
+     * The first report loads the read model, so later ones scan memory instead of the database.
+     */
+    private void runOccupancyReport(JButton button, JProgressBar progressBar, JTextArea output) {
+        button.setEnabled(false);
+        progressBar.setValue(0);
+        OccupancyReporter reporter = new OccupancyReporter(Collections.singletonList(dbHandler),
+                OccupancyReporter.DEFAULT_RANGES_PER_DATABASE, reportExecutor);
+        // Only the newest partial report is drawn; earlier ones still waiting for the EDT are dropped
+        AtomicReference<OccupancyReport> latest = new AtomicReference<>();
+        Consumer<OccupancyReport> redraw = report -> {
+            if (latest.getAndSet(report) == null) {
+                SwingUtilities.invokeLater(() -> {
+                    OccupancyReport shown = latest.getAndSet(null);
+                    output.setText(shown.toText());
+                    output.setCaretPosition(0);
+                    progressBar.setValue((int) Math.round(shown.getProgress() * 100));
+                });
+            }
+        };
+        CompletableFuture.runAsync(dbHandler::enableReadModel, reportExecutor)
+                .thenCompose(loaded -> reporter.run(OccupancyReporter.DEFAULT_TOP_N, redraw))
+                .whenComplete((report, error) -> SwingUtilities.invokeLater(() -> {
+                    button.setEnabled(true);
+                    if (error != null) {
+                        showError(AsyncDataAccess.unwrap(error));
+                    }
+                }));
+    }
+
+    private void showUnionExample() {
+        showRows(new String[]{"Flight ID", "Flight Name", "Source", "Destination"}, dbHandler::getUnionExample);
     }
 
     public static void main(String[] args) {
+        long launched = System.nanoTime();
+        // The database opens in the background while the window comes up with a loading message
+        CompletableFuture<DatabaseHandler> opening = CompletableFuture.supplyAsync(DatabaseHandler::new);
         SwingUtilities.invokeLater(() -> {
             try {
                 UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-                new FlightBookingGUI();
+                new FlightBookingGUI(opening, launched);
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -0,0 +1,203 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of flight rows keyed by flightId.
+ *
+ * The cache is filled from one full listing and then kept current by the change events that
+ * {@link DatabaseHandler} publishes from its write paths, so listing flights needs no SQL. It holds
+ * at most {@code maxSize} flights and evicts the least recently used; once anything has been
+ * evicted it no longer has the whole catalogue and listings fall back to the database, which
+ * refills it. Flights are also kept in id order, so listings, pages and counts need no sorting.
+ */
+public class FlightCache implements DataChangeListener {
+    private final int maxSize;
+    private final LinkedHashMap<Integer, FlightRecord> flights;
+    // The same flights in id order
+    private final TreeMap<Integer, FlightRecord> byId = new TreeMap<>();
+    // Handed out by getAll until the next change, then rebuilt from byId
+    private List<FlightRecord> listing;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private boolean complete;
+    private long version;
+
+    public FlightCache(final int maxSize) {
+        this.maxSize = maxSize;
+        this.flights = new LinkedHashMap<Integer, FlightRecord>(Math.min(maxSize, 1024), 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, FlightRecord> eldest) {
+                if (size() > FlightCache.this.maxSize) {
+                    complete = false;
+                    byId.remove(eldest.getKey());
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Every cached flight in id order, or null if the cache does not hold the whole catalogue.
+     * The list is unmodifiable and shared by every caller until the next change.
+     */
+    public synchronized List<FlightRecord> getAll() {
+        if (!complete) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        if (listing == null) {
+            listing = Collections.unmodifiableList(new ArrayList<>(byId.values()));
+        }
+        return listing;
+    }
+
+    /**
+     * Up to {@code limit} flights with an id greater than {@code afterFlightId}, in id order, or
+     * null if the cache does not hold the whole catalogue
+     */
+    public synchronized List<FlightRecord> getPage(int afterFlightId, int limit) {
+        if (!complete) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        List<FlightRecord> page = new ArrayList<>(Math.max(0, Math.min(limit, byId.size())));
+        for (FlightRecord flight : byId.tailMap(afterFlightId, false).values()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(flight);
+        }
+        return page;
+    }
+
+    /**
+     * Number of flights, or -1 if the cache does not hold the whole catalogue
+     */
+    public synchronized int countAll() {
+        if (!complete) {
+            misses.incrementAndGet();
+            return -1;
+        }
+        hits.incrementAndGet();
+        return flights.size();
+    }
+
+    /**
+     * The cached flight, or null on a miss
+     */
+    public synchronized FlightRecord get(int flightId) {
+        FlightRecord flight = flights.get(flightId);
+        if (flight != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return flight;
+    }
+
+    /**
+     * True if the cache holds the whole catalogue, so a miss means the flight does not exist
+     */
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Token to pass to {@link #loadAll(Collection, long)}, taken before the database is read
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Replaces the cache with a full listing read from the database. If a change event arrived
+     * while the listing was being read the listing may be stale, so it is ignored.
+     */
+    public synchronized void loadAll(Collection<FlightRecord> all, long versionAtRead) {
+        if (versionAtRead != version) {
+            return;
+        }
+        clear();
+        complete = all.size() <= maxSize;
+        for (FlightRecord flight : all) {
+            store(flight);
+        }
+    }
+
+    /**
+     * Caches a single flight read from the database, unless a newer row is already held
+     */
+    public synchronized void put(FlightRecord flight) {
+        store(flight);
+    }
+
+    public synchronized void invalidateAll() {
+        version++;
+        clear();
+        complete = false;
+    }
+
+    @Override
+    public synchronized void flightAdded(FlightRecord flight) {
+        version++;
+        store(flight);
+    }
+
+    @Override
+    public synchronized void flightChanged(FlightRecord flight) {
+        version++;
+        store(flight);
+    }
+
+    private void store(FlightRecord flight) {
+        // Bookings only ever raise passenger_count, so a row with fewer passengers than the one held
+        // was read before the change that produced it (a read-through racing a booking) and is stale
+        FlightRecord held = flights.get(flight.getFlightId());
+        if (held != null && held.getPassengerCount() > flight.getPassengerCount()) {
+            return;
+        }
+        // byId first, so whatever this put evicts is removed from both
+        byId.put(flight.getFlightId(), flight);
+        flights.put(flight.getFlightId(), flight);
+        listing = null;
+    }
+
+    private void clear() {
+        flights.clear();
+        byId.clear();
+        listing = null;
+    }
+
+    @Override
+    public void bulkChange() {
+        invalidateAll();
+    }
+
+    public long getHits() { return hits.get(); }
+    public long getMisses() { return misses.get(); }
+    public long getEvictions() { return evictions.get(); }
+    public int getMaxSize() { return maxSize; }
+
+    public synchronized int size() {
+        return flights.size();
+    }
+
+    @Override
+    public String toString() {
+        return "FlightCache[size=" + size() + "/" + maxSize + ", hits=" + getHits() + ", misses=" + getMisses()
+                + ", evictions=" + getEvictions() + "]";
+    }
+}
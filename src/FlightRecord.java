@@ -0,0 +1,60 @@
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * One row of the flights table
+ */
+public class FlightRecord {
+    private final int flightId;
+    private final String flightName;
+    private final String source;
+    private final String destination;
+    private final int capacity;
+    private final int passengerCount;
+    private final int availableSeats;
+
+    public FlightRecord(int flightId, String flightName, String source, String destination,
+                        int capacity, int passengerCount, int availableSeats) {
+        this.flightId = flightId;
+        this.flightName = flightName;
+        this.source = source;
+        this.destination = destination;
+        this.capacity = capacity;
+        this.passengerCount = passengerCount;
+        this.availableSeats = availableSeats;
+    }
+
+    static FlightRecord from(ResultSet rs) throws SQLException {
+        return new FlightRecord(
+                rs.getInt("flightId"),
+                rs.getString("flightName"),
+                rs.getString("source"),
+                rs.getString("destination"),
+                rs.getInt("capacity"),
+                rs.getInt("passenger_count"),
+                rs.getInt("available_seats"));
+    }
+
+    public int getFlightId() { return flightId; }
+    public String getFlightName() { return flightName; }
+    public String getSource() { return source; }
+    public String getDestination() { return destination; }
+    public int getCapacity() { return capacity; }
+    public int getPassengerCount() { return passengerCount; }
+    public int getAvailableSeats() { return availableSeats; }
+
+    /**
+     * The row in the column order of {@link DatabaseHandler#getAllFlights()}
+     */
+    public String[] toArray() {
+        return new String[] {
+            String.valueOf(flightId), flightName, source, destination,
+            String.valueOf(capacity), String.valueOf(passengerCount), String.valueOf(availableSeats)
+        };
+    }
+
+    @Override
+    public String toString() {
+        return flightId + " - " + flightName;
+    }
+}
@@ -0,0 +1,207 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Single writer thread that books queued passengers in groups, one transaction and so one disk
+ * sync per group instead of per booking.
+ *
+ * Callers queue a {@link BookingRequest} and get a future. The writer takes up to
+ * {@code maxGroupSize} requests, waiting at most {@code maxWaitMillis} for a group to fill, and
+ * runs each through {@link SeatReservationEngine#reserveInTransaction} inside its own savepoint,
+ * so a full flight or a duplicate passport rolls back only that booking. Every future in the
+ * group completes after the group has committed, each with its own result.
+ *
+ * Unlike {@link WriteBehindWriter}, seats are still decided by the database, not by an in-memory
+ * inventory.
+ */
+public class GroupCommitWriter {
+    public static final String GROUPS = "groupCommit.groups";
+    public static final String GROUPED_BOOKINGS = "groupCommit.bookings";
+    private static final int MAX_BUSY_RETRIES = 3;
+
+    private final ConnectionPool pool;
+    private final SeatReservationEngine reservations;
+    private final int maxGroupSize;
+    private final long maxWaitMillis;
+    private final Consumer<List<PassengerRecord>> onCommitted;
+    private final Metrics metrics;
+    private final BlockingQueue<PendingBooking> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    // Held across submit's check of running and its enqueue, so shutdown can't slip in between
+    private final Object submitLock = new Object();
+
+    /**
+     * @param onCommitted told, on the writer thread, which passengers each committed group stored
+     */
+    public GroupCommitWriter(ConnectionPool pool, SeatReservationEngine reservations, int maxGroupSize,
+                             long maxWaitMillis, Consumer<List<PassengerRecord>> onCommitted, Metrics metrics) {
+        this.pool = pool;
+        this.reservations = reservations;
+        this.maxGroupSize = Math.max(1, maxGroupSize);
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        this.onCommitted = onCommitted;
+        this.metrics = metrics;
+        this.thread = new Thread(this::run, "booking-group-commit");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public CompletableFuture<BookingResult> submit(BookingRequest request) {
+        PendingBooking pending = new PendingBooking(request);
+        synchronized (submitLock) {
+            if (running) {
+                queue.add(pending);
+                return pending.result;
+            }
+        }
+        pending.result.complete(BookingResult.ERROR);
+        return pending.result;
+    }
+
+    /**
+     * Stops accepting bookings, commits everything still queued and waits for the thread to exit
+     */
+    public void shutdown() {
+        synchronized (submitLock) {
+            running = false;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PendingBooking straggler;
+        while ((straggler = queue.poll()) != null) {
+            straggler.result.complete(BookingResult.ERROR);
+        }
+    }
+
+    private void run() {
+        List<PendingBooking> group = new ArrayList<>(maxGroupSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingBooking first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, maxGroupSize - 1);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                while (group.size() < maxGroupSize && running) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingBooking next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                    queue.drainTo(group, maxGroupSize - group.size());
+                }
+                commit(group);
+            } catch (InterruptedException e) {
+                running = false;
+                if (!group.isEmpty()) {
+                    commit(group);
+                }
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingBooking> group) {
+        long started = System.nanoTime();
+        List<BookingReceipt> results = null;
+        for (int attempt = 0; results == null; attempt++) {
+            try (ConnectionPool.Lease lease = pool.write()) {
+                results = book(lease.connection(), group);
+            } catch (SQLException e) {
+                if (SeatReservationEngine.isBusy(e) && attempt < MAX_BUSY_RETRIES) {
+                    metrics.increment(Metrics.BUSY_RETRIES);
+                    continue;
+                }
+                metrics.failed("groupCommit", e);
+                results = new ArrayList<>(group.size());
+                for (int i = 0; i < group.size(); i++) {
+                    results.add(BookingReceipt.refused(BookingResult.ERROR));
+                }
+            }
+        }
+        metrics.recordSince("groupCommit", started);
+        metrics.increment(GROUPS);
+        metrics.counter(GROUPED_BOOKINGS).add(group.size());
+
+        List<PassengerRecord> stored = new ArrayList<>(group.size());
+        for (BookingReceipt receipt : results) {
+            if (receipt.isBooked()) {
+                stored.add(receipt.getPassenger());
+            }
+        }
+        if (!stored.isEmpty()) {
+            onCommitted.accept(stored);
+        }
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).result.complete(results.get(i).getResult());
+        }
+    }
+
+    /**
+     * Books the whole group in one transaction; throws only if the transaction itself failed
+     */
+    private List<BookingReceipt> book(Connection conn, List<PendingBooking> group) throws SQLException {
+        List<BookingReceipt> results = new ArrayList<>(group.size());
+        conn.setAutoCommit(false);
+        try {
+            for (PendingBooking pending : group) {
+                results.add(bookOne(conn, pending.request));
+            }
+            conn.commit();
+            return results;
+        } catch (SQLException e) {
+            conn.rollback();
+            metrics.increment(Metrics.ROLLBACKS);
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private BookingReceipt bookOne(Connection conn, BookingRequest request) throws SQLException {
+        Savepoint savepoint = conn.setSavepoint();
+        BookingReceipt receipt;
+        try {
+            receipt = reservations.reserveInTransaction(conn, request.getName(), request.getPassportNumber(),
+                    request.getContactNumber(), request.getEmail(), request.getFlightId());
+        } catch (SQLException e) {
+            if (SeatReservationEngine.isBusy(e)) {
+                throw e; // the whole group is retried
+            }
+            metrics.failed("groupCommit.booking", e);
+            receipt = BookingReceipt.refused(BookingResult.ERROR);
+        }
+        if (!receipt.isBooked()) {
+            conn.rollback(savepoint);
+            metrics.increment(Metrics.SAVEPOINT_ROLLBACKS);
+        }
+        conn.releaseSavepoint(savepoint);
+        return receipt;
+    }
+
+    private static class PendingBooking {
+        private final BookingRequest request;
+        private final CompletableFuture<BookingResult> result = new CompletableFuture<>();
+
+        private PendingBooking(BookingRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,847 @@
+import javax.management.ObjectName;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Storage engine that keeps every flight and passenger in memory and makes them durable with an
+ * append-only, memory-mapped journal plus periodic snapshots.
+ *
+ * Each new flight or booking is one checksummed record appended to {@code bookings-N.journal}
+ * and forced to disk before the caller hears back, so writes are purely sequential. Once the
+ * journal passes a size threshold, and on close, the whole state is written to
+ * {@code bookings.snapshot} and a fresh journal generation is started. Opening maps the
+ * snapshot, then replays the journal up to the last intact record, so a torn write at the tail
+ * is dropped.
+ *
+ * Queries return the same rows, in the same order, as {@link DatabaseHandler}. Bookings are
+ * serialized on one write lock; reads share a read lock. Change events are published in commit
+ * order, outside the write lock, so listeners may read from the engine but must not write to it.
+ */
+public class JournalStorage implements BookingStorage {
+    public static final long DEFAULT_SNAPSHOT_BYTES = 64L << 20;
+    static final String SNAPSHOT_FILE = "bookings.snapshot";
+    private static final int MIN_CAPACITY = 100;
+    private static final long INITIAL_JOURNAL_BYTES = 1L << 20;
+    private static final int RECORD_HEADER_BYTES = 8; // payload length, then its CRC32
+    private static final byte FLIGHT_RECORD = 1;
+    private static final byte BOOKING_RECORD = 2;
+    private static final int SNAPSHOT_MAGIC = 0x41495250;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * A flight's fixed columns plus its passengers, from which the seat counts follow
+     */
+    private static class FlightState {
+        final int flightId;
+        final String name;
+        final String source;
+        final String destination;
+        final int capacity;
+        final List<PassengerRecord> passengers = new ArrayList<>();
+
+        FlightState(int flightId, String name, String source, String destination, int capacity) {
+            this.flightId = flightId;
+            this.name = name;
+            this.source = source;
+            this.destination = destination;
+            this.capacity = capacity;
+        }
+
+        int availableSeats() {
+            return capacity - passengers.size();
+        }
+
+        FlightRecord toRecord() {
+            return new FlightRecord(flightId, name, source, destination, capacity, passengers.size(), availableSeats());
+        }
+    }
+
+    // The order of the passengers index getPassengersByFlightId reads in SQLite
+    private static final Comparator<PassengerRecord> BY_NAME = Comparator.comparing(PassengerRecord::getName)
+            .thenComparing(PassengerRecord::getPassportNumber)
+            .thenComparing(PassengerRecord::getContactNumber)
+            .thenComparing(PassengerRecord::getEmail);
+
+    private final Path directory;
+    private final long snapshotBytes;
+    private final Metrics metrics = new Metrics();
+    private final DataChangeBus changes = new DataChangeBus();
+    private final RouteIndex routeIndex = new RouteIndex();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Taken before the write lock and held until the change is published, so listeners see
+    // changes in commit order. Never taken while the write lock is held: a listener reading the
+    // engine needs the read lock, which a writer waiting here would otherwise be blocking.
+    private final ReentrantLock publishing = new ReentrantLock();
+    private final TreeMap<Integer, FlightState> flights = new TreeMap<>();
+    private final TreeMap<Integer, PassengerRecord> passengers = new TreeMap<>();
+    private final Map<String, Integer> passports = new HashMap<>();
+    private final Map<String, Integer> contacts = new HashMap<>();
+    private final Map<String, Integer> emails = new HashMap<>();
+    private int lastFlightId;
+    private int lastPassengerId;
+    private long generation;
+    private FileChannel journalChannel;
+    private MappedByteBuffer journal;
+    private ObjectName metricsName;
+    private PassengerSearchIndex searchIndex;
+
+    public JournalStorage(Path directory) {
+        this(directory, DEFAULT_SNAPSHOT_BYTES);
+    }
+
+    /**
+     * Opens or creates the engine in {@code directory}, snapshotting whenever the journal grows
+     * past {@code snapshotBytes}
+     *
+     * @throws IllegalStateException if the snapshot or journal cannot be read
+     */
+    public JournalStorage(Path directory, long snapshotBytes) {
+        this.directory = directory;
+        this.snapshotBytes = snapshotBytes;
+        long started = System.nanoTime();
+        try {
+            Files.createDirectories(directory);
+            Files.deleteIfExists(directory.resolve(SNAPSHOT_FILE + ".tmp"));
+            Path snapshot = directory.resolve(SNAPSHOT_FILE);
+            if (Files.exists(snapshot)) {
+                readSnapshot(snapshot);
+            }
+            deleteOldJournals();
+            openJournal(true);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open the booking journal in " + directory, e);
+        }
+        metrics.recordSince("open", started);
+        changes.addListener(routeIndex);
+        routeIndex.load(this);
+        metricsName = MetricsMBean.register(metrics, BookingStorage.JOURNAL_PREFIX + directory.toAbsolutePath());
+    }
+
+    private Path journalPath(long journalGeneration) {
+        return directory.resolve("bookings-" + journalGeneration + ".journal");
+    }
+
+    /**
+     * Maps the current generation's journal and, when {@code replay} is set, applies every intact
+     * record in it and drops anything after the first damaged one
+     */
+    private void openJournal(boolean replay) throws IOException {
+        journalChannel = FileChannel.open(journalPath(generation), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        journal = journalChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(INITIAL_JOURNAL_BYTES, journalChannel.size()));
+        if (!replay) {
+            return;
+        }
+        CRC32 crc = new CRC32();
+        while (journal.remaining() >= RECORD_HEADER_BYTES) {
+            int start = journal.position();
+            int length = journal.getInt();
+            int checksum = journal.getInt();
+            if (length <= 0 || length > journal.remaining()) {
+                journal.position(start);
+                break;
+            }
+            ByteBuffer payload = journal.slice();
+            payload.limit(length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                metrics.increment("journal.torn_records");
+                journal.position(start);
+                // Zero the damaged tail so a shorter record written over it can't be misread later
+                for (int i = start; i < journal.limit(); i++) {
+                    journal.put(i, (byte) 0);
+                }
+                break;
+            }
+            replay(payload);
+            journal.position(start + RECORD_HEADER_BYTES + length);
+        }
+    }
+
+    private void replay(ByteBuffer payload) {
+        byte type = payload.get();
+        if (type == FLIGHT_RECORD) {
+            int flightId = payload.getInt();
+            int capacity = payload.getInt();
+            applyFlight(new FlightState(flightId, getString(payload), getString(payload), getString(payload), capacity));
+        } else if (type == BOOKING_RECORD) {
+            int passengerId = payload.getInt();
+            int flightId = payload.getInt();
+            applyBooking(new PassengerRecord(passengerId, getString(payload), getString(payload), getString(payload),
+                    getString(payload), flightId));
+        } else {
+            throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    private void applyFlight(FlightState flight) {
+        flights.put(flight.flightId, flight);
+        lastFlightId = Math.max(lastFlightId, flight.flightId);
+    }
+
+    private void applyBooking(PassengerRecord passenger) {
+        passengers.put(passenger.getPassengerId(), passenger);
+        passports.put(passenger.getPassportNumber(), passenger.getPassengerId());
+        contacts.put(passenger.getContactNumber(), passenger.getPassengerId());
+        emails.put(passenger.getEmail(), passenger.getPassengerId());
+        flights.get(passenger.getFlightId()).passengers.add(passenger);
+        lastPassengerId = Math.max(lastPassengerId, passenger.getPassengerId());
+    }
+
+    /**
+     * Appends one record and forces it to disk, growing the mapping when it is full
+     */
+    private void append(byte type, int first, int second, String... strings) throws IOException {
+        long started = System.nanoTime();
+        byte[][] encoded = new byte[strings.length][];
+        int length = 1 + 4 + 4;
+        for (int i = 0; i < strings.length; i++) {
+            encoded[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+            length += 4 + encoded[i].length;
+        }
+        int start = journal.position();
+        long needed = (long) start + RECORD_HEADER_BYTES + length + RECORD_HEADER_BYTES;
+        if (needed > journal.limit()) {
+            long size = journal.limit();
+            while (size < needed) {
+                size *= 2;
+            }
+            journal = journalChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            journal.position(start);
+        }
+        journal.position(start + RECORD_HEADER_BYTES);
+        ByteBuffer payload = journal.slice();
+        payload.limit(length);
+        payload.put(type).putInt(first).putInt(second);
+        for (byte[] value : encoded) {
+            payload.putInt(value.length).put(value);
+        }
+        payload.flip();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        journal.putInt(start, length);
+        journal.putInt(start + 4, (int) crc.getValue());
+        journal.force();
+        journal.position(start + RECORD_HEADER_BYTES + length);
+        metrics.recordSince("journal.append", started);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes the whole state to a new snapshot and starts an empty journal generation. Blocks
+     * writers while it runs.
+     */
+    public void snapshot() {
+        lock.writeLock().lock();
+        try {
+            writeSnapshot();
+        } catch (IOException e) {
+            metrics.failed("snapshot", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void snapshotIfDue() {
+        if (journal.position() >= snapshotBytes) {
+            try {
+                writeSnapshot();
+            } catch (IOException e) {
+                // The journal still holds everything, so bookings carry on and the next one tries again
+                metrics.failed("snapshot", e);
+            }
+        }
+    }
+
+    private void writeSnapshot() throws IOException {
+        long started = System.nanoTime();
+        long next = generation + 1;
+        Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile())) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(next);
+            out.writeInt(lastFlightId);
+            out.writeInt(lastPassengerId);
+            out.writeInt(flights.size());
+            for (FlightState flight : flights.values()) {
+                out.writeInt(flight.flightId);
+                out.writeInt(flight.capacity);
+                putString(out, flight.name);
+                putString(out, flight.source);
+                putString(out, flight.destination);
+            }
+            out.writeInt(passengers.size());
+            for (PassengerRecord passenger : passengers.values()) {
+                out.writeInt(passenger.getPassengerId());
+                out.writeInt(passenger.getFlightId());
+                putString(out, passenger.getName());
+                putString(out, passenger.getPassportNumber());
+                putString(out, passenger.getContactNumber());
+                putString(out, passenger.getEmail());
+            }
+            out.flush();
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+            file.getChannel().force(true);
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        long previous = generation;
+        journalChannel.close();
+        generation = next;
+        openJournal(false);
+        deleteJournal(previous);
+        metrics.recordSince("snapshot", started);
+    }
+
+    /**
+     * Maps the snapshot and loads it; the snapshot names the journal generation to replay after it
+     */
+    private void readSnapshot(Path snapshot) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            ByteBuffer body = in.duplicate();
+            body.limit(in.limit() - 4);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != in.getInt(in.limit() - 4)) {
+                throw new IOException("Snapshot " + snapshot + " is damaged");
+            }
+            if (in.getInt() != SNAPSHOT_MAGIC || in.getInt() != SNAPSHOT_VERSION) {
+                throw new IOException(snapshot + " is not a booking snapshot this version can read");
+            }
+            generation = in.getLong();
+            lastFlightId = in.getInt();
+            lastPassengerId = in.getInt();
+            for (int i = in.getInt(); i > 0; i--) {
+                int flightId = in.getInt();
+                int capacity = in.getInt();
+                applyFlight(new FlightState(flightId, getString(in), getString(in), getString(in), capacity));
+            }
+            for (int i = in.getInt(); i > 0; i--) {
+                int passengerId = in.getInt();
+                int flightId = in.getInt();
+                applyBooking(new PassengerRecord(passengerId, getString(in), getString(in), getString(in),
+                        getString(in), flightId));
+            }
+        }
+    }
+
+    /**
+     * Removes journals of generations the snapshot already covers, left by a crash or by a
+     * platform that would not delete a file still mapped
+     */
+    private void deleteOldJournals() throws IOException {
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(directory, "bookings-*.journal")) {
+            for (Path file : journals) {
+                String name = file.getFileName().toString();
+                long fileGeneration = Long.parseLong(name.substring("bookings-".length(), name.length() - ".journal".length()));
+                if (fileGeneration < generation) {
+                    deleteJournal(fileGeneration);
+                }
+            }
+        }
+    }
+
+    private void deleteJournal(long journalGeneration) {
+        try {
+            Files.deleteIfExists(journalPath(journalGeneration));
+        } catch (IOException e) {
+            // Still mapped on some platforms; the next open removes it
+            metrics.increment("journal.delete_deferred");
+        }
+    }
+
+    @Override
+    public FlightRecord addFlight(String name, String source, String destination, int capacity) {
+        if (name == null || source == null || destination == null) {
+            return null;
+        }
+        int finalCapacity = Math.max(capacity, MIN_CAPACITY);
+        long started = System.nanoTime();
+        FlightRecord added = null;
+        publishing.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                int flightId = lastFlightId + 1;
+                append(FLIGHT_RECORD, flightId, finalCapacity, name, source, destination);
+                FlightState flight = new FlightState(flightId, name, source, destination, finalCapacity);
+                applyFlight(flight);
+                added = flight.toRecord();
+                snapshotIfDue();
+            } catch (IOException e) {
+                metrics.failed("addFlight", e);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            metrics.recordSince("addFlight", started);
+            if (added != null) {
+                changes.flightAdded(added);
+            }
+        } finally {
+            publishing.unlock();
+        }
+        return added;
+    }
+
+    @Override
+    public BookingResult bookPassenger(String name, String passport, String contact, String email, int flightId) {
+        if (name == null || passport == null || contact == null || email == null) {
+            return BookingResult.INVALID_REQUEST;
+        }
+        long started = System.nanoTime();
+        BookingResult result;
+        PassengerRecord passenger = null;
+        FlightRecord flight = null;
+        publishing.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                // Same precedence as DatabaseHandler, which screens for duplicates before it reserves a seat
+                FlightState state = flights.get(flightId);
+                if (passports.containsKey(passport)) {
+                    result = BookingResult.DUPLICATE_PASSPORT;
+                } else if (contacts.containsKey(contact)) {
+                    result = BookingResult.DUPLICATE_CONTACT;
+                } else if (emails.containsKey(email)) {
+                    result = BookingResult.DUPLICATE_EMAIL;
+                } else if (state == null) {
+                    result = BookingResult.UNKNOWN_FLIGHT;
+                } else if (state.availableSeats() <= 0) {
+                    result = BookingResult.NO_SEATS;
+                } else {
+                    int passengerId = lastPassengerId + 1;
+                    append(BOOKING_RECORD, passengerId, flightId, name, passport, contact, email);
+                    passenger = new PassengerRecord(passengerId, name, passport, contact, email, flightId);
+                    applyBooking(passenger);
+                    flight = state.toRecord();
+                    result = BookingResult.BOOKED;
+                    snapshotIfDue();
+                }
+            } catch (IOException e) {
+                metrics.failed("bookPassenger", e);
+                result = BookingResult.ERROR;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            metrics.recordSince("bookPassenger", started);
+            if (passenger != null) {
+                changes.passengerAdded(passenger);
+                changes.flightChanged(flight);
+            }
+        } finally {
+            publishing.unlock();
+        }
+        if (passenger == null) {
+            metrics.rejected(result);
+        }
+        return result;
+    }
+
+    /**
+     * Books synchronously; the journal write is quick enough not to need a queue
+     */
+    @Override
+    public CompletableFuture<BookingResult> bookPassengerAsync(String name, String passport, String contact,
+                                                               String email, int flightId) {
+        return CompletableFuture.completedFuture(bookPassenger(name, passport, contact, email, flightId));
+    }
+
+    @Override
+    public FlightRecord getFlight(int flightId) {
+        lock.readLock().lock();
+        try {
+            FlightState flight = flights.get(flightId);
+            return flight == null ? null : flight.toRecord();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public PassengerRecord getPassenger(int passengerId) {
+        lock.readLock().lock();
+        try {
+            return passengers.get(passengerId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<FlightRecord> listFlights() {
+        return getFlightsPage(0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<String[]> getAllFlights() {
+        List<String[]> rows = new ArrayList<>();
+        for (FlightRecord flight : listFlights()) {
+            rows.add(flight.toArray());
+        }
+        return rows;
+    }
+
+    @Override
+    public List<String[]> getAllPassengers() {
+        List<String[]> rows = new ArrayList<>();
+        for (PassengerRecord passenger : getPassengersPage(0, Integer.MAX_VALUE)) {
+            rows.add(passenger.toArray());
+        }
+        return rows;
+    }
+
+    @Override
+    public List<String[]> getPassengersWithFlights() {
+        List<String[]> rows = new ArrayList<>();
+        for (PassengerFlightRecord passenger : getPassengersWithFlightsPage(0, Integer.MAX_VALUE)) {
+            rows.add(passenger.toArray());
+        }
+        return rows;
+    }
+
+    @Override
+    public List<String[]> getPassengersByFlightId(int flightId) {
+        List<PassengerRecord> booked;
+        lock.readLock().lock();
+        try {
+            FlightState flight = flights.get(flightId);
+            booked = flight == null ? new ArrayList<>() : new ArrayList<>(flight.passengers);
+        } finally {
+            lock.readLock().unlock();
+        }
+        booked.sort(BY_NAME);
+        List<String[]> rows = new ArrayList<>(booked.size());
+        for (PassengerRecord passenger : booked) {
+            rows.add(new String[] {
+                passenger.getName(), passenger.getPassportNumber(), passenger.getContactNumber(), passenger.getEmail()
+            });
+        }
+        return rows;
+    }
+
+    @Override
+    public List<String[]> getUnionExample() {
+        List<String[]> rows = new ArrayList<>();
+        for (FlightRecord flight : listFlights()) {
+            if (flight.getCapacity() > 50 || flight.getAvailableSeats() < 20) {
+                rows.add(new String[] {
+                    String.valueOf(flight.getFlightId()), flight.getFlightName(), flight.getSource(), flight.getDestination()
+                });
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public List<FlightRecord> getFlightsPage(int afterFlightId, int limit) {
+        lock.readLock().lock();
+        try {
+            List<FlightRecord> page = new ArrayList<>();
+            for (FlightState flight : flights.tailMap(afterFlightId, false).values()) {
+                if (page.size() >= limit) {
+                    break;
+                }
+                page.add(flight.toRecord());
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<PassengerRecord> getPassengersPage(int afterPassengerId, int limit) {
+        lock.readLock().lock();
+        try {
+            List<PassengerRecord> page = new ArrayList<>();
+            for (PassengerRecord passenger : passengers.tailMap(afterPassengerId, false).values()) {
+                if (page.size() >= limit) {
+                    break;
+                }
+                page.add(passenger);
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<PassengerFlightRecord> getPassengersWithFlightsPage(int afterPassengerId, int limit) {
+        lock.readLock().lock();
+        try {
+            List<PassengerFlightRecord> page = new ArrayList<>();
+            for (PassengerRecord passenger : passengers.tailMap(afterPassengerId, false).values()) {
+                if (page.size() >= limit) {
+                    break;
+                }
+                page.add(withFlight(passenger));
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private PassengerFlightRecord withFlight(PassengerRecord passenger) {
+        FlightState flight = flights.get(passenger.getFlightId());
+        return new PassengerFlightRecord(passenger, flight.name, flight.source, flight.destination, flight.availableSeats());
+    }
+
+    @Override
+    public List<FlightRecord> getFlightsAt(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<FlightRecord> page = new ArrayList<>();
+            int position = 0;
+            for (FlightState flight : flights.values()) {
+                if (page.size() >= limit) {
+                    break;
+                }
+                if (position++ >= offset) {
+                    page.add(flight.toRecord());
+                }
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<PassengerRecord> getPassengersAt(int offset, int limit) {
+        List<PassengerRecord> page = new ArrayList<>();
+        for (PassengerFlightRecord passenger : getPassengersWithFlightsAt(offset, limit)) {
+            page.add(passenger.getPassenger());
+        }
+        return page;
+    }
+
+    @Override
+    public List<PassengerFlightRecord> getPassengersWithFlightsAt(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            List<PassengerFlightRecord> page = new ArrayList<>();
+            int position = 0;
+            for (PassengerRecord passenger : passengers.values()) {
+                if (page.size() >= limit) {
+                    break;
+                }
+                if (position++ >= offset) {
+                    page.add(withFlight(passenger));
+                }
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int countFlights() {
+        lock.readLock().lock();
+        try {
+            return flights.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int countPassengers() {
+        lock.readLock().lock();
+        try {
+            return passengers.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every passenger has a flight, since flights are never removed
+     */
+    @Override
+    public int countPassengersWithFlights() {
+        return countPassengers();
+    }
+
+    /**
+     * Hands every flight to {@code action} from a copy, so bookings are not held up meanwhile
+     */
+    @Override
+    public void forEachFlight(int fetchSize, Consumer<FlightRecord> action) {
+        listFlights().forEach(action);
+    }
+
+    @Override
+    public void forEachPassenger(int fetchSize, Consumer<PassengerRecord> action) {
+        getPassengersPage(0, Integer.MAX_VALUE).forEach(action);
+    }
+
+    @Override
+    public List<FlightRecord> searchRoutes(String source, String destination, int minSeats) {
+        long started = System.nanoTime();
+        List<FlightRecord> found = routeIndex.search(source, destination, minSeats);
+        metrics.recordSince("searchRoutes", started);
+        return found;
+    }
+
+    /**
+     * Searches an index built on first use and kept current from this engine's change events
+     */
+    @Override
+    public List<PassengerRecord> searchPassengers(String query, int limit) {
+        PassengerSearchIndex index;
+        synchronized (this) {
+            if (searchIndex == null) {
+                long started = System.nanoTime();
+                searchIndex = new PassengerSearchIndex();
+                changes.addListener(searchIndex);
+                searchIndex.load(this);
+                metrics.recordSince("enableSearchIndex", started);
+            }
+            index = searchIndex;
+        }
+        long started = System.nanoTime();
+        List<PassengerRecord> found = index.search(query, limit);
+        metrics.recordSince("searchPassengers", started);
+        return found;
+    }
+
+    @Override
+    public boolean passportExists(String passport) {
+        return contains(passports, passport);
+    }
+
+    @Override
+    public boolean contactExists(String contact) {
+        return contains(contacts, contact);
+    }
+
+    @Override
+    public boolean emailExists(String email) {
+        return contains(emails, email);
+    }
+
+    private boolean contains(Map<String, Integer> column, String value) {
+        lock.readLock().lock();
+        try {
+            return column.containsKey(value);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean flightExists(int flightId) {
+        lock.readLock().lock();
+        try {
+            FlightState flight = flights.get(flightId);
+            return flight != null && !flight.passengers.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean hasAvailableSeats(int flightId) {
+        lock.readLock().lock();
+        try {
+            FlightState flight = flights.get(flightId);
+            return flight != null && flight.availableSeats() > 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void addChangeListener(DataChangeListener listener) {
+        changes.addListener(listener);
+    }
+
+    @Override
+    public void removeChangeListener(DataChangeListener listener) {
+        changes.removeListener(listener);
+    }
+
+    @Override
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Bytes of journal written since the last snapshot
+     */
+    public long getJournalBytes() {
+        lock.readLock().lock();
+        try {
+            return journal == null ? 0 : journal.position();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Snapshots anything still only in the journal, so the next open has nothing to replay
+     */
+    @Override
+    public void closeConnection() {
+        lock.writeLock().lock();
+        try {
+            if (journalChannel == null) {
+                return;
+            }
+            if (journal.position() > 0) {
+                writeSnapshot();
+            }
+            journalChannel.close();
+            journalChannel = null;
+        } catch (IOException e) {
+            metrics.failed("close", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        MetricsMBean.unregister(metricsName);
+        metricsName = null;
+    }
+}
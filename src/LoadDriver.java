@@ -0,0 +1,253 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless load driver: N agents book against a {@link DatabaseHandler} at once.
+ *
+ * Each agent runs its own list of operations from a {@link Workload}, generated from a seed or
+ * replayed from a file. When the run ends the driver prints throughput, latency percentiles per
+ * operation and booking outcomes, then recounts every flight straight from the database to
+ * make sure no flight was oversold. For example:
+ *
+ * <pre>java -cp .:sqlite-jdbc-3.46.1.3.jar LoadDriver --agents 16 --ops 2000 --flights 200 --record run.tsv
+ * java -cp .:sqlite-jdbc-3.46.1.3.jar LoadDriver --replay run.tsv</pre>
+ *
+ * The exit status is 1 if any flight was oversold or left with seat counts that disagree with
+ * its passengers.
+ */
+public class LoadDriver {
+    static final String DEFAULT_MIX = "book=70,duplicate_passport=5,add_flight=1,list_flights=4,list_by_flight=15,list_passengers_page=5";
+
+    private final DatabaseHandler db;
+    private final Workload workload;
+    private final Map<Workload.OpType, LatencyHistogram> latencies = new EnumMap<>(Workload.OpType.class);
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    public LoadDriver(DatabaseHandler db, Workload workload) {
+        this.db = db;
+        this.workload = workload;
+        for (Workload.OpType type : Workload.OpType.values()) {
+            latencies.put(type, new LatencyHistogram());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        Workload workload;
+        if (options.containsKey("replay")) {
+            workload = Workload.load(Paths.get(options.get("replay")));
+        } else {
+            workload = Workload.generate(
+                    Long.parseLong(options.getOrDefault("seed", "1")),
+                    Integer.parseInt(options.getOrDefault("agents", "8")),
+                    Integer.parseInt(options.getOrDefault("ops", "1000")),
+                    Integer.parseInt(options.getOrDefault("flights", "100")),
+                    Integer.parseInt(options.getOrDefault("capacity", "100")),
+                    Double.parseDouble(options.getOrDefault("zipf", "0.99")),
+                    Workload.parseMix(options.getOrDefault("mix", DEFAULT_MIX)));
+        }
+        if (options.containsKey("record")) {
+            workload.save(Paths.get(options.get("record")));
+            System.out.println("Recorded " + workload.getOpCount() + " operations to " + options.get("record"));
+        }
+
+        File dbFile;
+        if (options.containsKey("db")) {
+            dbFile = new File(options.get("db"));
+            if (dbFile.exists()) {
+                // Operations address the starting flights by id, which only holds in a fresh database
+                System.err.println(dbFile + " already exists; the driver needs a fresh database");
+                System.exit(2);
+            }
+        } else {
+            dbFile = File.createTempFile("load-driver", ".db");
+            dbFile.delete();
+        }
+
+        String url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+        DatabaseHandler db = new DatabaseHandler(url, Integer.parseInt(options.getOrDefault("readers", "4")));
+        int oversold;
+        try {
+            if (options.containsKey("write-behind")) {
+                db.enableResidentInventory(Integer.parseInt(options.get("write-behind")), 5);
+            } else if (options.containsKey("group-commit")) {
+                db.enableGroupCommit(Integer.parseInt(options.get("group-commit")), 1);
+            }
+            LoadDriver driver = new LoadDriver(db, workload);
+            driver.createFlights();
+            long elapsedNanos = driver.run();
+            db.closeConnection();
+            db = null;
+            oversold = driver.report(elapsedNanos, url);
+        } finally {
+            if (db != null) {
+                db.closeConnection();
+            }
+            if (!options.containsKey("db")) {
+                for (String suffix : new String[] { "", "-wal", "-shm" }) {
+                    new File(dbFile.getAbsolutePath() + suffix).delete();
+                }
+            }
+        }
+        System.exit(oversold == 0 ? 0 : 1);
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    /**
+     * Creates the workload's starting flights, which get ids 1..n in a fresh database
+     */
+    public void createFlights() {
+        for (int i = 1; i <= workload.getFlights(); i++) {
+            db.addFlight("LD" + i, "SRC" + (i % 20), "DST" + (i % 17), workload.getCapacity());
+        }
+    }
+
+    /**
+     * Runs every agent to completion and returns the wall-clock time taken in nanoseconds
+     */
+    public long run() throws InterruptedException {
+        int agents = workload.getAgentCount();
+        ExecutorService pool = Executors.newFixedThreadPool(agents, TaskExecutors.daemonThreads("load-agent"));
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> running = new ArrayList<>();
+        for (int agent = 0; agent < agents; agent++) {
+            List<Workload.Op> ops = workload.opsFor(agent);
+            running.add(pool.submit(() -> {
+                start.await();
+                for (Workload.Op op : ops) {
+                    execute(op);
+                }
+                return null;
+            }));
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> agent : running) {
+            try {
+                agent.get();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        return elapsed;
+    }
+
+    private void execute(Workload.Op op) {
+        long started = System.nanoTime();
+        String outcome = "ok";
+        switch (op.getType()) {
+            case ADD_FLIGHT:
+                db.addFlight(op.getName(), "LOAD", "TEST", op.getCapacity());
+                break;
+            case BOOK:
+            case DUPLICATE_PASSPORT:
+                outcome = db.bookPassenger(op.getName(), op.getPassport(), op.getContact(), op.getEmail(),
+                        op.getFlightId()).name();
+                break;
+            case LIST_FLIGHTS:
+                db.getAllFlights();
+                break;
+            case LIST_BY_FLIGHT:
+                db.getPassengersByFlightId(op.getFlightId());
+                break;
+            case LIST_PASSENGERS_PAGE:
+                db.getPassengersWithFlightsPage(op.getAfterPassengerId(), Workload.PAGE_SIZE);
+                break;
+        }
+        latencies.get(op.getType()).record(System.nanoTime() - started);
+        outcomes.computeIfAbsent(op.getType() + " " + outcome, k -> new LongAdder()).increment();
+    }
+
+    /**
+     * Prints the run summary and returns the number of flights that are oversold or whose
+     * counters disagree with the passengers table
+     */
+    int report(long elapsedNanos, String url) throws SQLException {
+        LatencyHistogram all = new LatencyHistogram();
+        for (LatencyHistogram histogram : latencies.values()) {
+            all.add(histogram);
+        }
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%d agents, %d operations in %.2fs: %.0f ops/s%n",
+                workload.getAgentCount(), all.getCount(), seconds, all.getCount() / seconds);
+        System.out.println();
+        System.out.printf("%-22s %s%n", "all", all.summaryMicros());
+        for (Map.Entry<Workload.OpType, LatencyHistogram> entry : latencies.entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                System.out.printf("%-22s %s%n", entry.getKey(), entry.getValue().summaryMicros());
+            }
+        }
+
+        System.out.println();
+        List<String> keys = new ArrayList<>(outcomes.keySet());
+        keys.sort(null);
+        long rejected = 0;
+        for (String key : keys) {
+            long count = outcomes.get(key).sum();
+            System.out.printf("%-40s %d%n", key, count);
+            if (!key.endsWith(" ok") && !key.endsWith(" BOOKED")) {
+                rejected += count;
+            }
+        }
+        System.out.println("rejections " + rejected);
+
+        int[] problems = checkSeats(url);
+        System.out.println();
+        System.out.println("oversold flights " + problems[0] + ", flights with drifted seat counters " + problems[1]);
+        return problems[0] + problems[1];
+    }
+
+    /**
+     * Recounts passengers per flight on a connection of its own and returns
+     * {oversold flights, flights whose counters disagree with the recount}
+     */
+    static int[] checkSeats(String url) throws SQLException {
+        String sql = "SELECT f.capacity, f.passenger_count, f.available_seats, COUNT(p.passengerId) AS booked "
+                + "FROM flights f LEFT JOIN passengers p ON p.flightId = f.flightId GROUP BY f.flightId";
+        int oversold = 0;
+        int drifted = 0;
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                int capacity = rs.getInt("capacity");
+                int booked = rs.getInt("booked");
+                if (booked > capacity) {
+                    oversold++;
+                }
+                if (rs.getInt("passenger_count") != booked || rs.getInt("available_seats") != capacity - booked) {
+                    drifted++;
+                }
+            }
+        }
+        return new int[] { oversold, drifted };
+    }
+}
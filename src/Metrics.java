@@ -0,0 +1,139 @@
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named latency histograms and counters for one {@link DatabaseHandler}.
+ *
+ * Timers record nanoseconds per operation; counters count events such as rollbacks and
+ * rejected bookings. Both are created on first use and are safe to update from any thread.
+ * {@link MetricsMBean} publishes them over JMX and {@link MetricsReporter} writes them to a file.
+ */
+public class Metrics {
+    public static final String ROLLBACKS = "rollbacks";
+    public static final String SAVEPOINT_ROLLBACKS = "rollbacks.savepoint";
+    public static final String BUSY_RETRIES = "sqlite.busy_retries";
+    public static final String DUPLICATE_REJECTIONS = "rejected.duplicate";
+    public static final String SOLD_OUT_REJECTIONS = "rejected.sold_out";
+    public static final String UNKNOWN_FLIGHT_REJECTIONS = "rejected.unknown_flight";
+    public static final String ERRORS = "errors";
+    /** Uniqueness checks settled by the resident filters without a query */
+    public static final String UNIQUENESS_SCREENED = "uniqueness.screened";
+    public static final String UNIQUENESS_CONFIRMED = "uniqueness.confirmed";
+    public static final String UNIQUENESS_FALSE_POSITIVES = "uniqueness.false_positives";
+    public static final String STARTUP_OPEN = "startup.open";
+    public static final String STARTUP_WARM_UP = "startup.warmUp";
+    /** Time from launch to the window showing, to its tabs being usable, and to the first booking made in it */
+    public static final String STARTUP_FIRST_FRAME = "startup.firstFrame";
+    public static final String STARTUP_INTERACTIVE = "startup.interactive";
+    public static final String STARTUP_FIRST_BOOKING = "startup.firstBooking";
+    public static final String READ_WAIT = "pool.wait.read";
+    public static final String WRITE_WAIT = "pool.wait.write";
+
+    private final ConcurrentSkipListMap<String, LatencyHistogram> timers = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+
+    public LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    /**
+     * Publishes a histogram owned by someone else, such as the pool's connection wait times
+     */
+    public void register(String name, LatencyHistogram histogram) {
+        timers.put(name, histogram);
+    }
+
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public void increment(String name) {
+        counter(name).increment();
+    }
+
+    public long count(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Records the time since {@code startedNanos}, taken from {@link System#nanoTime()}
+     */
+    public void recordSince(String operation, long startedNanos) {
+        timer(operation).record(System.nanoTime() - startedNanos);
+    }
+
+    /**
+     * Counts a failed operation and logs it
+     */
+    public void failed(String operation, Exception e) {
+        increment(ERRORS);
+        increment(ERRORS + "." + operation);
+        e.printStackTrace();
+    }
+
+    /**
+     * Counts a refused booking under its reason
+     */
+    public void rejected(BookingResult result) {
+        if (result.isDuplicate()) {
+            increment(DUPLICATE_REJECTIONS);
+        } else if (result == BookingResult.NO_SEATS) {
+            increment(SOLD_OUT_REJECTIONS);
+        } else if (result == BookingResult.UNKNOWN_FLIGHT) {
+            increment(UNKNOWN_FLIGHT_REJECTIONS);
+        } else if (result == BookingResult.ERROR) {
+            increment(ERRORS);
+        }
+    }
+
+    public Map<String, LatencyHistogram> getTimers() {
+        return timers;
+    }
+
+    public Map<String, LongAdder> getCounters() {
+        return counters;
+    }
+
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, LatencyHistogram> timer : timers.entrySet()) {
+            sb.append(String.format("%-40s %s%n", timer.getKey(), timer.getValue().summaryMicros()));
+        }
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            sb.append(String.format("%-40s %d%n", counter.getKey(), counter.getValue().sum()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Every timer and counter as one JSON object; latencies are in microseconds
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\"timers\":{");
+        boolean first = true;
+        for (Map.Entry<String, LatencyHistogram> timer : timers.entrySet()) {
+            LatencyHistogram h = timer.getValue();
+            sb.append(first ? "" : ",").append('"').append(timer.getKey()).append("\":")
+                    .append(String.format(Locale.ROOT, "{\"count\":%d,\"meanMicros\":%.1f,\"p50Micros\":%.1f,\"p99Micros\":%.1f,"
+                                    + "\"p999Micros\":%.1f,\"maxMicros\":%.1f}",
+                            h.getCount(), h.getMean() / 1e3, h.getValueAtPercentile(50) / 1e3,
+                            h.getValueAtPercentile(99) / 1e3, h.getValueAtPercentile(99.9) / 1e3, h.getMax() / 1e3));
+            first = false;
+        }
+        sb.append("},\"counters\":{");
+        first = true;
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            sb.append(first ? "" : ",").append('"').append(counter.getKey()).append("\":").append(counter.getValue().sum());
+            first = false;
+        }
+        return sb.append("}}").toString();
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+}
@@ -0,0 +1,128 @@
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes a {@link Metrics} registry over JMX, one read-only attribute per counter and per
+ * timer statistic (for example {@code bookPassenger.p99Micros}), so jconsole or any JMX
+ * collector can read them. The attribute list is rebuilt on every request because timers and
+ * counters appear as they are first used.
+ */
+public class MetricsMBean implements DynamicMBean {
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+    private static final String[] TIMER_STATS = { "count", "meanMicros", "p50Micros", "p99Micros", "p999Micros", "maxMicros" };
+
+    private final Metrics metrics;
+
+    public MetricsMBean(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Registers {@code metrics} with the platform MBean server under
+     * {@code airport:type=DatabaseHandler,name=<name>} and returns the name used, or null if
+     * registration failed
+     */
+    public static ObjectName register(Metrics metrics, String name) {
+        try {
+            ObjectName objectName = new ObjectName("airport:type=DatabaseHandler,name="
+                    + ObjectName.quote(name + "#" + INSTANCES.incrementAndGet()));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(metrics), objectName);
+            return objectName;
+        } catch (JMException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public static void unregister(ObjectName objectName) {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        LongAdder counter = metrics.getCounters().get(attribute);
+        if (counter != null) {
+            return counter.sum();
+        }
+        int dot = attribute.lastIndexOf('.');
+        LatencyHistogram timer = dot < 0 ? null : metrics.getTimers().get(attribute.substring(0, dot));
+        if (timer != null) {
+            switch (attribute.substring(dot + 1)) {
+                case "count": return timer.getCount();
+                case "meanMicros": return timer.getMean() / 1e3;
+                case "p50Micros": return timer.getValueAtPercentile(50) / 1e3;
+                case "p99Micros": return timer.getValueAtPercentile(99) / 1e3;
+                case "p999Micros": return timer.getValueAtPercentile(99.9) / 1e3;
+                case "maxMicros": return timer.getMax() / 1e3;
+                default: break;
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // JMX convention: unknown attributes are left out of the result
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if ("dumpText".equals(actionName)) {
+            return metrics.toText();
+        }
+        if ("dumpJson".equals(actionName)) {
+            return metrics.toJson();
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (Map.Entry<String, LongAdder> counter : metrics.getCounters().entrySet()) {
+            attributes.add(new MBeanAttributeInfo(counter.getKey(), "long", "counter", true, false, false));
+        }
+        for (String timer : metrics.getTimers().keySet()) {
+            for (String stat : TIMER_STATS) {
+                String type = stat.equals("count") ? "long" : "double";
+                attributes.add(new MBeanAttributeInfo(timer + "." + stat, type, "latency " + stat, true, false, false));
+            }
+        }
+        MBeanOperationInfo[] operations = {
+            new MBeanOperationInfo("dumpText", "All metrics as text", new MBeanParameterInfo[0], "java.lang.String", MBeanOperationInfo.INFO),
+            new MBeanOperationInfo("dumpJson", "All metrics as JSON", new MBeanParameterInfo[0], "java.lang.String", MBeanOperationInfo.INFO)
+        };
+        return new MBeanInfo(getClass().getName(), "DatabaseHandler metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, operations, null);
+    }
+}
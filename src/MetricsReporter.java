@@ -0,0 +1,57 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a {@link Metrics} snapshot to a local file every few seconds.
+ *
+ * A file ending in {@code .json} gets {@link Metrics#toJson()}, anything else the text table.
+ * Each snapshot replaces the file in one move, so readers never see a half-written dump.
+ */
+public class MetricsReporter {
+    private final Metrics metrics;
+    private final Path file;
+    private final long periodSeconds;
+    private ScheduledExecutorService scheduler;
+
+    public MetricsReporter(Metrics metrics, Path file, long periodSeconds) {
+        this.metrics = metrics;
+        this.file = file;
+        this.periodSeconds = periodSeconds;
+    }
+
+    public synchronized void start() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(TaskExecutors.daemonThreads("metrics-reporter"));
+            scheduler.scheduleAtFixedRate(this::write, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stops the schedule and writes one last snapshot
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            write();
+        }
+    }
+
+    public void write() {
+        String dump = file.toString().endsWith(".json") ? metrics.toJson() : metrics.toText();
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            Files.write(temp, dump.getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Seat occupancy across flights: load factor per route and per departure airport, the fullest
+ * flights and the flights about to sell out.
+ *
+ * Built by {@link OccupancyReporter} from passengers counted per flight. While the count is
+ * still running a report covers only the id ranges finished so far, as {@link #getProgress()}
+ * tells.
+ */
+public class OccupancyReport {
+    /** Flights at or above this load factor, but not yet full, are listed as about to sell out */
+    public static final double NEAR_SELL_OUT = 0.9;
+
+    /**
+     * Seats and bookings summed over a group of flights
+     */
+    public static class Load {
+        private int flights;
+        private long capacity;
+        private long booked;
+
+        void add(int flightCapacity, int flightBooked) {
+            flights++;
+            capacity += flightCapacity;
+            booked += flightBooked;
+        }
+
+        public int getFlights() { return flights; }
+        public long getCapacity() { return capacity; }
+        public long getBooked() { return booked; }
+
+        public double getLoadFactor() {
+            return capacity == 0 ? 0 : (double) booked / capacity;
+        }
+    }
+
+    /**
+     * A flight with the passengers counted for it
+     */
+    public static class FlightLoad {
+        private final FlightRecord flight;
+        private final int booked;
+
+        FlightLoad(FlightRecord flight, int booked) {
+            this.flight = flight;
+            this.booked = booked;
+        }
+
+        public FlightRecord getFlight() { return flight; }
+        public int getBooked() { return booked; }
+
+        public double getLoadFactor() {
+            return flight.getCapacity() == 0 ? 0 : (double) booked / flight.getCapacity();
+        }
+    }
+
+    private static final Comparator<FlightLoad> BY_LOAD_FACTOR =
+            Comparator.comparingDouble(FlightLoad::getLoadFactor).thenComparingInt(FlightLoad::getBooked);
+
+    private final Map<String, Load> byRoute = new TreeMap<>();
+    private final Map<String, Load> byAirport = new TreeMap<>();
+    private final Load total = new Load();
+    private final List<FlightLoad> fullest = new ArrayList<>();
+    private final List<FlightLoad> nearSellOut = new ArrayList<>();
+    private int soldOut;
+    private final long passengersCounted;
+    private final int rangesDone;
+    private final int rangesTotal;
+    private final long elapsedNanos;
+
+    OccupancyReport(long passengersCounted, int rangesDone, int rangesTotal, long elapsedNanos) {
+        this.passengersCounted = passengersCounted;
+        this.rangesDone = rangesDone;
+        this.rangesTotal = rangesTotal;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    void add(FlightRecord flight, int booked) {
+        byRoute.computeIfAbsent(flight.getSource() + " -> " + flight.getDestination(), k -> new Load())
+                .add(flight.getCapacity(), booked);
+        byAirport.computeIfAbsent(flight.getSource(), k -> new Load()).add(flight.getCapacity(), booked);
+        total.add(flight.getCapacity(), booked);
+        FlightLoad load = new FlightLoad(flight, booked);
+        fullest.add(load);
+        if (booked >= flight.getCapacity()) {
+            soldOut++;
+        } else if (load.getLoadFactor() >= NEAR_SELL_OUT) {
+            nearSellOut.add(load);
+        }
+    }
+
+    /**
+     * Sorts the flight lists, keeping the {@code topN} fullest flights
+     */
+    void finish(int topN) {
+        fullest.sort(Collections.reverseOrder(BY_LOAD_FACTOR));
+        if (fullest.size() > topN) {
+            fullest.subList(topN, fullest.size()).clear();
+        }
+        nearSellOut.sort(Collections.reverseOrder(BY_LOAD_FACTOR));
+    }
+
+    public Map<String, Load> getByRoute() { return byRoute; }
+    public Map<String, Load> getByAirport() { return byAirport; }
+    public Load getTotal() { return total; }
+    public List<FlightLoad> getFullest() { return fullest; }
+    public List<FlightLoad> getNearSellOut() { return nearSellOut; }
+    public int getSoldOut() { return soldOut; }
+    public long getPassengersCounted() { return passengersCounted; }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    public boolean isComplete() {
+        return rangesDone == rangesTotal;
+    }
+
+    /**
+     * Share of passenger id ranges counted so far, from 0 to 1
+     */
+    public double getProgress() {
+        return rangesTotal == 0 ? 1 : (double) rangesDone / rangesTotal;
+    }
+
+    public String toText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%s: %d passengers counted in %.2fs (%d of %d ranges)%n",
+                isComplete() ? "Complete" : "Partial", passengersCounted, elapsedNanos / 1e9, rangesDone, rangesTotal));
+        sb.append(String.format("All flights: %s, %d sold out, %d above %.0f%%%n%n",
+                describe(total), soldOut, nearSellOut.size(), NEAR_SELL_OUT * 100));
+
+        sb.append(String.format("Fullest flights%n"));
+        for (FlightLoad load : fullest) {
+            sb.append(String.format("  %-30s %5.1f%%  %d/%d%n", load.getFlight().getFlightId() + " - "
+                            + load.getFlight().getFlightName(), load.getLoadFactor() * 100, load.getBooked(),
+                    load.getFlight().getCapacity()));
+        }
+        sb.append(String.format("%nAbout to sell out%n"));
+        for (FlightLoad load : nearSellOut) {
+            sb.append(String.format("  %-30s %d seats left%n", load.getFlight().getFlightId() + " - "
+                    + load.getFlight().getFlightName(), load.getFlight().getCapacity() - load.getBooked()));
+        }
+        sb.append(String.format("%nBy airport%n"));
+        for (Map.Entry<String, Load> airport : byAirport.entrySet()) {
+            sb.append(String.format("  %-30s %s%n", airport.getKey(), describe(airport.getValue())));
+        }
+        sb.append(String.format("%nBy route%n"));
+        for (Map.Entry<String, Load> route : byRoute.entrySet()) {
+            sb.append(String.format("  %-30s %s%n", route.getKey(), describe(route.getValue())));
+        }
+        return sb.toString();
+    }
+
+    private static String describe(Load load) {
+        return String.format("%5.1f%% of %d seats on %d flights", load.getLoadFactor() * 100, load.getCapacity(),
+                load.getFlights());
+    }
+
+    @Override
+    public String toString() {
+        return toText();
+    }
+}
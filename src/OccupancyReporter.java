@@ -0,0 +1,110 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+
+/**
+ * Builds {@link OccupancyReport}s by counting passengers in parallel.
+ *
+ * Each database (one, or one per airport shard) has its passenger ids cut into ranges, and every
+ * range is counted per flight on its own pooled read connection. As each range finishes, the
+ * counts so far are merged and handed to a progress callback as a partial report, so a caller
+ * can show results long before the last range is in. Bookings are counted from the passengers
+ * rather than taken from the flights' counters: from the table, or from a database's
+ * {@link ColumnarStore} when its read model is enabled.
+ */
+public class OccupancyReporter {
+    public static final int DEFAULT_RANGES_PER_DATABASE = 8;
+    public static final int DEFAULT_TOP_N = 10;
+
+    private final List<DatabaseHandler> databases;
+    private final int rangesPerDatabase;
+    private final ExecutorService executor;
+
+    public OccupancyReporter(List<DatabaseHandler> databases, int rangesPerDatabase, ExecutorService executor) {
+        this.databases = databases;
+        this.rangesPerDatabase = Math.max(1, rangesPerDatabase);
+        this.executor = executor;
+    }
+
+    /**
+     * Starts the report without blocking the caller. {@code progress}, which may be null, is
+     * called from worker threads, one call at a time, with a partial report after every range;
+     * the returned future completes with the full report, or exceptionally if any range could not
+     * be counted.
+     */
+    public CompletableFuture<OccupancyReport> run(int topN, Consumer<OccupancyReport> progress) {
+        long started = System.nanoTime();
+        int total = databases.size() * rangesPerDatabase;
+        List<List<FlightRecord>> catalogues = new ArrayList<>();
+        List<Map<Integer, Integer>> bookings = new ArrayList<>();
+        for (int d = 0; d < databases.size(); d++) {
+            catalogues.add(Collections.<FlightRecord>emptyList());
+            bookings.add(new HashMap<>());
+        }
+        int[] done = { 0 };
+        long[] counted = { 0 };
+
+        List<CompletableFuture<Void>> counting = new ArrayList<>();
+        for (int d = 0; d < databases.size(); d++) {
+            int index = d;
+            DatabaseHandler db = databases.get(d);
+            counting.add(CompletableFuture.supplyAsync(() -> {
+                List<FlightRecord> catalogue = db.listFlights();
+                synchronized (bookings) {
+                    catalogues.set(index, catalogue);
+                }
+                return db.getMaxPassengerId();
+            }, executor).thenCompose(maxId -> {
+                int step = (maxId + rangesPerDatabase - 1) / rangesPerDatabase;
+                List<CompletableFuture<Void>> ranges = new ArrayList<>();
+                for (int r = 0; r < rangesPerDatabase; r++) {
+                    int after = Math.min(maxId, r * step);
+                    int upTo = Math.min(maxId, after + step);
+                    ranges.add(CompletableFuture.supplyAsync(() -> after < upTo
+                            ? db.countBookingsPerFlight(after, upTo)
+                            : Collections.<Integer, Integer>emptyMap(), executor).thenAccept(counts -> {
+                        synchronized (bookings) {
+                            for (Map.Entry<Integer, Integer> count : counts.entrySet()) {
+                                bookings.get(index).merge(count.getKey(), count.getValue(), Integer::sum);
+                                counted[0] += count.getValue();
+                            }
+                            done[0]++;
+                            if (progress != null && done[0] < total) {
+                                progress.accept(build(catalogues, bookings, counted[0], done[0], total, topN, started));
+                            }
+                        }
+                    }));
+                }
+                return CompletableFuture.allOf(ranges.toArray(new CompletableFuture<?>[0]));
+            }));
+        }
+        return CompletableFuture.allOf(counting.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            synchronized (bookings) {
+                OccupancyReport report = build(catalogues, bookings, counted[0], total, total, topN, started);
+                if (progress != null) {
+                    progress.accept(report);
+                }
+                return report;
+            }
+        });
+    }
+
+    private static OccupancyReport build(List<List<FlightRecord>> catalogues, List<Map<Integer, Integer>> bookings,
+                                         long counted, int done, int total, int topN, long started) {
+        OccupancyReport report = new OccupancyReport(counted, done, total, System.nanoTime() - started);
+        for (int d = 0; d < catalogues.size(); d++) {
+            Map<Integer, Integer> booked = bookings.get(d);
+            for (FlightRecord flight : catalogues.get(d)) {
+                Integer count = booked.get(flight.getFlightId());
+                report.add(flight, count == null ? 0 : count);
+            }
+        }
+        report.finish(topN);
+        return report;
+    }
+}
@@ -0,0 +1,325 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Table model that loads rows from the database a page at a time as the table asks for them.
+ *
+ * Only the row count is queried up front. A page is fetched the first time one of its cells is
+ * painted and kept in a small LRU cache, so scrolling through millions of rows never holds more
+ * than {@code maxCachedPages * pageSize} of them. Pages are fetched by keyset (id greater than the
+ * last id of the previous page) whenever that id is known, and by offset after a long jump.
+ *
+ * With an {@link AsyncDataAccess} attached, the count and the pages are loaded off the Event
+ * Dispatch Thread: cells of a page still loading read as empty and are repainted when it arrives.
+ *
+ * Single-row changes can be applied with {@link #appendRow} and {@link #updateRow} instead of a
+ * full {@link #refresh()}; they touch only cached pages and fire events for just that row.
+ */
+public class PagedTableModel<T> extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_PAGE_SIZE = 200;
+    public static final int DEFAULT_CACHED_PAGES = 16;
+
+    /**
+     * Where the model's rows come from
+     */
+    public interface PageSource<T> {
+        int count();
+
+        /** Rows whose key is greater than {@code afterKey}, in key order */
+        List<T> fetchAfter(int afterKey, int limit);
+
+        /** Rows starting at position {@code offset} in key order */
+        List<T> fetchAt(int offset, int limit);
+
+        int keyOf(T row);
+    }
+
+    /**
+     * Reads one cell of a row
+     */
+    public interface ColumnReader<T> {
+        Object get(T row, int column);
+    }
+
+    private final String[] columns;
+    private final PageSource<T> source;
+    private final ColumnReader<T> reader;
+    private final int pageSize;
+    private final Map<Integer, List<T>> pages;
+    private final Map<Integer, Integer> lastKeyOfPage = new HashMap<>();
+    private final Set<Integer> loadingPages = new HashSet<>();
+    private int rowCount;
+    private AsyncDataAccess async;
+    private String asyncKey;
+    private int generation;
+
+    public PagedTableModel(String[] columns, PageSource<T> source, ColumnReader<T> reader) {
+        this(columns, source, reader, DEFAULT_PAGE_SIZE, DEFAULT_CACHED_PAGES);
+    }
+
+    public PagedTableModel(String[] columns, PageSource<T> source, ColumnReader<T> reader,
+                           int pageSize, final int maxCachedPages) {
+        this.columns = columns.clone();
+        this.source = source;
+        this.reader = reader;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<Integer, List<T>>(maxCachedPages + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxCachedPages;
+            }
+        };
+    }
+
+    /**
+     * Loads the count and pages through {@code async} instead of on the calling thread.
+     * {@code key} names this model's queries so a new refresh supersedes an unfinished one.
+     */
+    public void setAsync(AsyncDataAccess async, String key) {
+        this.async = async;
+        this.asyncKey = key;
+    }
+
+    /**
+     * Drops every cached page and re-reads the row count
+     */
+    public void refresh() {
+        generation++;
+        if (async == null) {
+            applyRefresh(source.count());
+            return;
+        }
+        final int refreshGeneration = generation;
+        async.load(asyncKey + ":count", source::count, count -> {
+            if (refreshGeneration == generation) {
+                applyRefresh(count);
+            }
+        }, Throwable::printStackTrace);
+    }
+
+    private void applyRefresh(int count) {
+        pages.clear();
+        lastKeyOfPage.clear();
+        loadingPages.clear();
+        rowCount = count;
+        fireTableDataChanged();
+    }
+
+    /**
+     * The row at {@code rowIndex}, loading its page if needed; null past the end of the data
+     * or, in async mode, while its page is still loading
+     */
+    public T getRow(int rowIndex) {
+        int pageIndex = rowIndex / pageSize;
+        List<T> page = pages.get(pageIndex);
+        if (page == null) {
+            if (async != null) {
+                requestPage(pageIndex);
+                return null;
+            }
+            page = fetchPage(pageIndex, afterKeyFor(pageIndex));
+            storePage(pageIndex, page);
+        }
+        int offsetInPage = rowIndex - pageIndex * pageSize;
+        return offsetInPage < page.size() ? page.get(offsetInPage) : null;
+    }
+
+    private void requestPage(final int pageIndex) {
+        if (!loadingPages.add(pageIndex)) {
+            return;
+        }
+        final int requestGeneration = generation;
+        final Integer afterKey = afterKeyFor(pageIndex);
+        async.load(asyncKey + ":page:" + pageIndex, () -> fetchPage(pageIndex, afterKey), page -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loadingPages.remove(pageIndex);
+            storePage(pageIndex, page);
+            int first = pageIndex * pageSize;
+            int last = Math.min(rowCount, first + pageSize) - 1;
+            if (last >= first) {
+                fireTableRowsUpdated(first, last);
+            }
+        }, error -> {
+            loadingPages.remove(pageIndex);
+            error.printStackTrace();
+        });
+    }
+
+    private Integer afterKeyFor(int pageIndex) {
+        return pageIndex == 0 ? Integer.valueOf(0) : lastKeyOfPage.get(pageIndex - 1);
+    }
+
+    /**
+     * Adds a row whose key is newer than every row already in the model
+     */
+    public void appendRow(T row) {
+        int rowIndex = rowCount;
+        int pageIndex = rowIndex / pageSize;
+        List<T> page = pages.get(pageIndex);
+        if (page != null && page.size() < pageSize) {
+            // Commits can be published slightly out of order, so keep the page sorted by key
+            int position = page.size();
+            int key = source.keyOf(row);
+            while (position > 0 && source.keyOf(page.get(position - 1)) > key) {
+                position--;
+            }
+            page.add(position, row);
+            lastKeyOfPage.put(pageIndex, source.keyOf(page.get(page.size() - 1)));
+            rowIndex = pageIndex * pageSize + position;
+        }
+        rowCount++;
+        fireTableRowsInserted(rowIndex, rowIndex);
+        if (rowIndex != rowCount - 1) {
+            fireTableRowsUpdated(rowIndex + 1, rowCount - 1);
+        }
+    }
+
+    /**
+     * Replaces the cached row with the same key as {@code row}. Rows on pages not in the cache
+     * need nothing, since they will be read fresh when scrolled into view.
+     */
+    public void updateRow(T row) {
+        int key = source.keyOf(row);
+        for (Map.Entry<Integer, List<T>> entry : pages.entrySet()) {
+            List<T> page = entry.getValue();
+            if (page.isEmpty() || source.keyOf(page.get(0)) > key || source.keyOf(page.get(page.size() - 1)) < key) {
+                continue;
+            }
+            int low = 0;
+            int high = page.size() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midKey = source.keyOf(page.get(mid));
+                if (midKey < key) {
+                    low = mid + 1;
+                } else if (midKey > key) {
+                    high = mid - 1;
+                } else {
+                    page.set(mid, row);
+                    int rowIndex = entry.getKey() * pageSize + mid;
+                    fireTableRowsUpdated(rowIndex, rowIndex);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs on a worker thread in async mode, so it must not touch the model's maps
+     */
+    private List<T> fetchPage(int pageIndex, Integer afterKey) {
+        if (afterKey != null) {
+            return source.fetchAfter(afterKey, pageSize);
+        }
+        return source.fetchAt(pageIndex * pageSize, pageSize);
+    }
+
+    private void storePage(int pageIndex, List<T> page) {
+        pages.put(pageIndex, page);
+        if (!page.isEmpty()) {
+            lastKeyOfPage.put(pageIndex, source.keyOf(page.get(page.size() - 1)));
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        T row = getRow(rowIndex);
+        return row == null ? null : reader.get(row, columnIndex);
+    }
+
+    public static PagedTableModel<FlightRecord> forFlights(final BookingStorage db) {
+        return new PagedTableModel<>(
+                new String[] {"ID", "Flight Name", "Source", "Destination", "Capacity", "Passengers", "Available Seats"},
+                new PageSource<FlightRecord>() {
+                    public int count() { return db.countFlights(); }
+                    public List<FlightRecord> fetchAfter(int afterKey, int limit) { return db.getFlightsPage(afterKey, limit); }
+                    public List<FlightRecord> fetchAt(int offset, int limit) { return db.getFlightsAt(offset, limit); }
+                    public int keyOf(FlightRecord row) { return row.getFlightId(); }
+                },
+                PagedTableModel::flightColumn);
+    }
+
+    public static PagedTableModel<PassengerRecord> forPassengers(final BookingStorage db) {
+        return new PagedTableModel<>(
+                new String[] {"Passenger ID", "Name", "Passport", "Contact", "Email", "Flight ID"},
+                new PageSource<PassengerRecord>() {
+                    public int count() { return db.countPassengers(); }
+                    public List<PassengerRecord> fetchAfter(int afterKey, int limit) { return db.getPassengersPage(afterKey, limit); }
+                    public List<PassengerRecord> fetchAt(int offset, int limit) { return db.getPassengersAt(offset, limit); }
+                    public int keyOf(PassengerRecord row) { return row.getPassengerId(); }
+                },
+                PagedTableModel::passengerColumn);
+    }
+
+    public static PagedTableModel<PassengerFlightRecord> forPassengersWithFlights(final BookingStorage db) {
+        return new PagedTableModel<>(
+                new String[] {"Passenger ID", "Name", "Passport", "Contact", "Email",
+                              "Flight ID", "Flight Name", "Source", "Destination", "Available Seats"},
+                new PageSource<PassengerFlightRecord>() {
+                    public int count() { return db.countPassengersWithFlights(); }
+                    public List<PassengerFlightRecord> fetchAfter(int afterKey, int limit) { return db.getPassengersWithFlightsPage(afterKey, limit); }
+                    public List<PassengerFlightRecord> fetchAt(int offset, int limit) { return db.getPassengersWithFlightsAt(offset, limit); }
+                    public int keyOf(PassengerFlightRecord row) { return row.getPassengerId(); }
+                },
+                (row, column) -> column < 6 ? passengerColumn(row.getPassenger(), column) : passengerFlightColumn(row, column));
+    }
+
+    static Object flightColumn(FlightRecord flight, int column) {
+        switch (column) {
+            case 0: return flight.getFlightId();
+            case 1: return flight.getFlightName();
+            case 2: return flight.getSource();
+            case 3: return flight.getDestination();
+            case 4: return flight.getCapacity();
+            case 5: return flight.getPassengerCount();
+            case 6: return flight.getAvailableSeats();
+            default: return null;
+        }
+    }
+
+    static Object passengerColumn(PassengerRecord passenger, int column) {
+        switch (column) {
+            case 0: return passenger.getPassengerId();
+            case 1: return passenger.getName();
+            case 2: return passenger.getPassportNumber();
+            case 3: return passenger.getContactNumber();
+            case 4: return passenger.getEmail();
+            case 5: return passenger.getFlightId();
+            default: return null;
+        }
+    }
+
+    private static Object passengerFlightColumn(PassengerFlightRecord row, int column) {
+        switch (column) {
+            case 6: return row.getFlightName();
+            case 7: return row.getSource();
+            case 8: return row.getDestination();
+            case 9: return row.getAvailableSeats();
+            default: return null;
+        }
+    }
+}
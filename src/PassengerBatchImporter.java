@@ -0,0 +1,301 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads passengers in chunks, one transaction and one JDBC batch per chunk.
+ *
+ * Seats for a chunk are allocated up front from the flights' available_seats (or from the
+ * resident {@link SeatInventory} when one is active), then the allocated rows go through a single
+ * INSERT OR IGNORE batch. Rows the batch ignored hit a UNIQUE constraint and are reported as
+ * duplicates; the seats they held are offered to rows of the same chunk that were refused for
+ * lack of seats, in a follow-up batch.
+ *
+ * In bulk-load mode the per-row insert trigger is switched off for the duration of the chunk, by
+ * a row in {@code bulk_load_guard} that only this transaction can see, and seat accounting is
+ * applied with one grouped-count statement over the rows the chunk inserted. No DDL runs, so the
+ * statements cached on other connections stay prepared.
+ */
+public class PassengerBatchImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    // Keeps the per-chunk "flightId IN (...)" under SQLite's host parameter limit
+    public static final int MAX_CHUNK_SIZE = 10_000;
+
+    static final String INSERT_OR_IGNORE_SQL = "INSERT OR IGNORE INTO passengers "
+            + "(name, passportNumber, contactNumber, email, flightId) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SUSPEND_INSERT_TRIGGER_SQL = "INSERT INTO " + DatabaseHandler.BULK_LOAD_GUARD_TABLE + " (id) VALUES (1)";
+    private static final String RESUME_INSERT_TRIGGER_SQL = "DELETE FROM " + DatabaseHandler.BULK_LOAD_GUARD_TABLE;
+
+    private final ConnectionPool pool;
+    private final SeatInventory inventory;
+    private final boolean bulkLoad;
+    private final Metrics metrics;
+
+    /**
+     * @param inventory resident inventory to allocate seats from, or null to allocate from the database
+     * @param bulkLoad  replace per-row trigger accounting with one set-based recount per chunk
+     */
+    public PassengerBatchImporter(ConnectionPool pool, SeatInventory inventory, boolean bulkLoad) {
+        this(pool, inventory, bulkLoad, new Metrics());
+    }
+
+    public PassengerBatchImporter(ConnectionPool pool, SeatInventory inventory, boolean bulkLoad, Metrics metrics) {
+        this.pool = pool;
+        this.inventory = inventory;
+        this.bulkLoad = bulkLoad;
+        this.metrics = metrics;
+    }
+
+    public BatchImportReport importAll(Iterator<BookingRequest> rows, int chunkSize) {
+        int size = Math.min(Math.max(1, chunkSize), MAX_CHUNK_SIZE);
+        BatchImportReport report = new BatchImportReport();
+        List<BookingRequest> chunk = new ArrayList<>(size);
+        int firstRow = 0;
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == size) {
+                importChunk(chunk, firstRow, report);
+                firstRow += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, firstRow, report);
+        }
+        return report;
+    }
+
+    private void importChunk(List<BookingRequest> chunk, int firstRow, BatchImportReport report) {
+        BatchImportReport.Status[] statuses = new BatchImportReport.Status[chunk.size()];
+        SeatAllocator seats = null;
+        try (ConnectionPool.Lease lease = pool.write()) {
+            Connection conn = lease.connection();
+            conn.setAutoCommit(false);
+            try {
+                seats = inventory != null ? new InventoryAllocator(inventory) : loadSeats(conn, chunk);
+                long loadedAfterId = 0;
+                if (bulkLoad) {
+                    loadedAfterId = lastPassengerId(conn);
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute(SUSPEND_INSERT_TRIGGER_SQL);
+                    }
+                }
+                insertChunk(conn, chunk, statuses, seats);
+                if (bulkLoad) {
+                    recountSeats(conn, loadedAfterId);
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute(RESUME_INSERT_TRIGGER_SQL);
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                metrics.increment(Metrics.ROLLBACKS);
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            metrics.failed("importChunk", e);
+            for (int i = 0; i < statuses.length; i++) {
+                if (statuses[i] == BatchImportReport.Status.ACCEPTED && seats != null) {
+                    seats.release(chunk.get(i).getFlightId());
+                }
+                statuses[i] = BatchImportReport.Status.ERROR;
+            }
+        }
+        for (int i = 0; i < statuses.length; i++) {
+            report.record(firstRow + i, statuses[i]);
+        }
+    }
+
+    private void insertChunk(Connection conn, List<BookingRequest> chunk, BatchImportReport.Status[] statuses,
+                             SeatAllocator seats) throws SQLException {
+        List<Integer> pending = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            pending.add(i);
+        }
+
+        try (PreparedStatement insert = conn.prepareStatement(INSERT_OR_IGNORE_SQL)) {
+            boolean seatsFreed = true;
+            while (seatsFreed && !pending.isEmpty()) {
+                List<Integer> batched = new ArrayList<>(pending.size());
+                List<Integer> waiting = new ArrayList<>();
+                for (int i : pending) {
+                    int flightId = chunk.get(i).getFlightId();
+                    if (!seats.isTracked(flightId)) {
+                        statuses[i] = BatchImportReport.Status.UNKNOWN_FLIGHT;
+                    } else if (seats.tryReserve(flightId)) {
+                        statuses[i] = BatchImportReport.Status.ACCEPTED;
+                        batched.add(i);
+                        addRow(insert, chunk.get(i));
+                    } else {
+                        statuses[i] = BatchImportReport.Status.NO_SEAT;
+                        waiting.add(i);
+                    }
+                }
+                if (batched.isEmpty()) {
+                    break;
+                }
+
+                int[] counts = insert.executeBatch();
+                seatsFreed = false;
+                for (int n = 0; n < batched.size(); n++) {
+                    if (counts[n] == 0) {
+                        int i = batched.get(n);
+                        statuses[i] = BatchImportReport.Status.DUPLICATE;
+                        seats.release(chunk.get(i).getFlightId());
+                        seatsFreed = true;
+                    }
+                }
+                pending = waiting;
+            }
+        }
+    }
+
+    private static final String LAST_PASSENGER_ID_SQL = "SELECT COALESCE(MAX(passengerId), 0) FROM passengers";
+    // NOT INDEXED keeps the planner on the rowid range instead of walking all of idx_passengers_flight
+    @ExpectedFullScan(value = "loaded", reason = "the grouped counts of this import only")
+    private static final String RECOUNT_SEATS_SQL = "UPDATE flights SET "
+            + "passenger_count = flights.passenger_count + loaded.n, "
+            + "available_seats = flights.capacity - flights.passenger_count - loaded.n "
+            + "FROM (SELECT flightId, COUNT(*) AS n FROM passengers NOT INDEXED WHERE passengerId > ? GROUP BY flightId) AS loaded "
+            + "WHERE flights.flightId = loaded.flightId";
+
+    private long lastPassengerId(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(LAST_PASSENGER_ID_SQL)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Applies the chunk's seat accounting in one statement. passengerId is AUTOINCREMENT, so the
+     * rows above the id captured before the insert are exactly the rows this chunk added, and the
+     * grouped count walks only those rows rather than the whole passengers table.
+     */
+    private void recountSeats(Connection conn, long loadedAfterId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(RECOUNT_SEATS_SQL)) {
+            stmt.setLong(1, loadedAfterId);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+
+    private void addRow(PreparedStatement insert, BookingRequest row) throws SQLException {
+        insert.setString(1, row.getName());
+        insert.setString(2, row.getPassportNumber());
+        insert.setString(3, row.getContactNumber());
+        insert.setString(4, row.getEmail());
+        insert.setInt(5, row.getFlightId());
+        insert.addBatch();
+    }
+
+    private SeatAllocator loadSeats(Connection conn, List<BookingRequest> chunk) throws SQLException {
+        Set<Integer> flightIds = new LinkedHashSet<>();
+        for (BookingRequest row : chunk) {
+            flightIds.add(row.getFlightId());
+        }
+        // Round the IN list up to a power of two so only a handful of distinct statements reach
+        // the statement cache; the spare slots repeat the last id
+        int slots = Integer.highestOneBit(flightIds.size());
+        if (slots < flightIds.size()) {
+            slots <<= 1;
+        }
+        Map<Integer, int[]> remaining = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(loadSeatsSql(slots))) {
+            int index = 1;
+            int last = 0;
+            for (int flightId : flightIds) {
+                stmt.setInt(index++, flightId);
+                last = flightId;
+            }
+            while (index <= slots) {
+                stmt.setInt(index++, last);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    remaining.put(rs.getInt("flightId"), new int[] { rs.getInt("available_seats") });
+                }
+            }
+        }
+        return new ChunkAllocator(remaining);
+    }
+
+    /**
+     * The seat lookup loadSeats prepares for an IN list of {@code slots} flight ids
+     */
+    static String loadSeatsSql(int slots) {
+        return "SELECT flightId, available_seats FROM flights WHERE flightId IN (" + placeholders(slots) + ")";
+    }
+
+    private interface SeatAllocator {
+        boolean isTracked(int flightId);
+        boolean tryReserve(int flightId);
+        void release(int flightId);
+    }
+
+    /**
+     * Seats read from the flights table for one chunk; the write lease keeps them stable until commit
+     */
+    private static class ChunkAllocator implements SeatAllocator {
+        private final Map<Integer, int[]> remaining;
+
+        private ChunkAllocator(Map<Integer, int[]> remaining) {
+            this.remaining = remaining;
+        }
+
+        public boolean isTracked(int flightId) {
+            return remaining.containsKey(flightId);
+        }
+
+        public boolean tryReserve(int flightId) {
+            int[] seats = remaining.get(flightId);
+            if (seats == null || seats[0] <= 0) {
+                return false;
+            }
+            seats[0]--;
+            return true;
+        }
+
+        public void release(int flightId) {
+            int[] seats = remaining.get(flightId);
+            if (seats != null) {
+                seats[0]++;
+            }
+        }
+    }
+
+    private static class InventoryAllocator implements SeatAllocator {
+        private final SeatInventory inventory;
+
+        private InventoryAllocator(SeatInventory inventory) {
+            this.inventory = inventory;
+        }
+
+        public boolean isTracked(int flightId) {
+            return inventory.isTracked(flightId);
+        }
+
+        public boolean tryReserve(int flightId) {
+            return inventory.tryReserve(flightId);
+        }
+
+        public void release(int flightId) {
+            inventory.release(flightId);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A passenger joined with the flight they are booked on
+ */
+public class PassengerFlightRecord {
+    private final PassengerRecord passenger;
+    private final String flightName;
+    private final String source;
+    private final String destination;
+    private final int availableSeats;
+
+    public PassengerFlightRecord(PassengerRecord passenger, String flightName, String source,
+                                 String destination, int availableSeats) {
+        this.passenger = passenger;
+        this.flightName = flightName;
+        this.source = source;
+        this.destination = destination;
+        this.availableSeats = availableSeats;
+    }
+
+    static PassengerFlightRecord from(ResultSet rs) throws SQLException {
+        return new PassengerFlightRecord(
+                PassengerRecord.from(rs),
+                rs.getString("flightName"),
+                rs.getString("source"),
+                rs.getString("destination"),
+                rs.getInt("available_seats"));
+    }
+
+    public PassengerRecord getPassenger() { return passenger; }
+    public int getPassengerId() { return passenger.getPassengerId(); }
+    public int getFlightId() { return passenger.getFlightId(); }
+    public String getFlightName() { return flightName; }
+    public String getSource() { return source; }
+    public String getDestination() { return destination; }
+    public int getAvailableSeats() { return availableSeats; }
+
+    /**
+     * The row in the column order of {@link DatabaseHandler#getPassengersWithFlights()}
+     */
+    public String[] toArray() {
+        return new String[] {
+            String.valueOf(passenger.getPassengerId()), passenger.getName(), passenger.getPassportNumber(),
+            passenger.getContactNumber(), passenger.getEmail(), String.valueOf(passenger.getFlightId()),
+            flightName, source, destination, String.valueOf(availableSeats)
+        };
+    }
+}
@@ -0,0 +1,152 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams a charter manifest CSV one passenger at a time.
+ *
+ * Expected columns are {@code name,passportNumber,contactNumber,email,flightId}. The first
+ * non-blank row is skipped as a header if its flightId is not a number, a UTF-8 byte order mark is
+ * dropped, blank lines are ignored and fields may be double-quoted (with {@code ""} for a literal
+ * quote). Only the current line is held in memory.
+ */
+public class PassengerManifestReader implements Iterator<BookingRequest>, Closeable {
+    private final BufferedReader reader;
+    private BookingRequest next;
+    private int lineNumber;
+    private boolean sawRecord;
+    private boolean finished;
+
+    public PassengerManifestReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    public static PassengerManifestReader open(Path path) throws IOException {
+        return new PassengerManifestReader(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lazily reads the manifest at {@code path}; closing the stream closes the file
+     */
+    public static Stream<BookingRequest> stream(Path path) throws IOException {
+        PassengerManifestReader manifest = open(path);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(manifest, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        manifest.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public BookingRequest next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        BookingRequest row = next;
+        next = null;
+        return row;
+    }
+
+    private BookingRequest readNext() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1); // byte order mark left by spreadsheet exports
+                }
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                boolean firstRecord = !sawRecord;
+                sawRecord = true;
+                List<String> fields = parseLine(line);
+                if (fields.size() != 5) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": expected 5 fields but found " + fields.size());
+                }
+                String flightId = fields.get(4).trim();
+                if (firstRecord && !isInteger(flightId)) {
+                    continue; // header row
+                }
+                if (!isInteger(flightId)) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": flightId '" + flightId + "' is not a number");
+                }
+                return new BookingRequest(fields.get(0).trim(), fields.get(1).trim(), fields.get(2).trim(),
+                        fields.get(3).trim(), Integer.parseInt(flightId));
+            }
+            finished = true;
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed reading manifest at line " + (lineNumber + 1), e);
+        }
+    }
+
+    static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>(5);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static boolean isInteger(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return value.length() < 10;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        reader.close();
+    }
+}
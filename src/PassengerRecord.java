@@ -0,0 +1,55 @@
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * One row of the passengers table
+ */
+public class PassengerRecord {
+    private final int passengerId;
+    private final String name;
+    private final String passportNumber;
+    private final String contactNumber;
+    private final String email;
+    private final int flightId;
+
+    public PassengerRecord(int passengerId, String name, String passportNumber, String contactNumber,
+                           String email, int flightId) {
+        this.passengerId = passengerId;
+        this.name = name;
+        this.passportNumber = passportNumber;
+        this.contactNumber = contactNumber;
+        this.email = email;
+        this.flightId = flightId;
+    }
+
+    static PassengerRecord from(ResultSet rs) throws SQLException {
+        return new PassengerRecord(
+                rs.getInt("passengerId"),
+                rs.getString("name"),
+                rs.getString("passportNumber"),
+                rs.getString("contactNumber"),
+                rs.getString("email"),
+                rs.getInt("flightId"));
+    }
+
+    public int getPassengerId() { return passengerId; }
+    public String getName() { return name; }
+    public String getPassportNumber() { return passportNumber; }
+    public String getContactNumber() { return contactNumber; }
+    public String getEmail() { return email; }
+    public int getFlightId() { return flightId; }
+
+    /**
+     * The row in the column order of {@link DatabaseHandler#getAllPassengers()}
+     */
+    public String[] toArray() {
+        return new String[] {
+            String.valueOf(passengerId), name, passportNumber, contactNumber, email, String.valueOf(flightId)
+        };
+    }
+
+    @Override
+    public String toString() {
+        return passengerId + " - " + name;
+    }
+}
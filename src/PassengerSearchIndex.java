@@ -0,0 +1,443 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory type-ahead search over passengers by name, passport number and email.
+ *
+ * Every passenger contributes one key per name word, one for the passport and one for the
+ * email, each lower-cased. The keys are stored as UTF-8 in a single byte array, each followed by
+ * a zero byte, and an int array of key offsets sorted by key turns a prefix search into a binary
+ * search plus a range scan that stops as soon as enough passengers are found. No object is kept
+ * per key or per passenger; matches are read back from the storage by id, so a million
+ * passengers cost tens of megabytes.
+ *
+ * Passengers booked since the last build wait in a short pending list that searches scan
+ * directly, and are merged into the sorted arrays {@link #MERGE_BATCH} at a time on a background
+ * thread. A build is never changed once published, so searches never block writers.
+ */
+public class PassengerSearchIndex implements DataChangeListener {
+    public static final int DEFAULT_LIMIT = 50;
+    /** Pending passengers that trigger a merge into the sorted arrays */
+    public static final int MERGE_BATCH = 4096;
+    private static final byte END = 0;
+    private static final int MIN_CAPACITY = 1024;
+    // Merges and reloads copy the whole index, so they never run on the thread delivering events
+    private static final ExecutorService REBUILDS =
+            Executors.newSingleThreadExecutor(TaskExecutors.daemonThreads("search-index-rebuild"));
+
+    private final Object pendingLock = new Object();
+    private final AtomicBoolean mergeQueued = new AtomicBoolean();
+    private final AtomicBoolean reloadQueued = new AtomicBoolean();
+    private volatile BookingStorage source;
+    // Swapped together under pendingLock, so a search never sees a passenger in both or neither
+    private Segment segment = Segment.EMPTY;
+    private List<PassengerRecord> pending = new ArrayList<>();
+
+    /**
+     * Replaces the contents with every passenger in {@code db}. Passengers booked while it reads
+     * are searched from the pending list until the next merge.
+     */
+    public synchronized void load(BookingStorage db) {
+        source = db;
+        Builder builder = new Builder(Segment.EMPTY, Math.max(MIN_CAPACITY, db.countPassengers()));
+        db.forEachPassenger(DatabaseHandler.DEFAULT_FETCH_SIZE, builder::add);
+        Segment built = builder.build(0);
+        synchronized (pendingLock) {
+            segment = built;
+            List<PassengerRecord> unread = new ArrayList<>();
+            for (PassengerRecord passenger : pending) {
+                // Commits are serialized, so ids up to the last one loaded were all read by the scan
+                if (passenger.getPassengerId() > built.lastPassengerId) {
+                    unread.add(passenger);
+                }
+            }
+            pending = unread;
+        }
+    }
+
+    @Override
+    public void passengerAdded(PassengerRecord passenger) {
+        int waiting;
+        synchronized (pendingLock) {
+            pending.add(passenger);
+            waiting = pending.size();
+        }
+        if (waiting >= MERGE_BATCH && mergeQueued.compareAndSet(false, true)) {
+            REBUILDS.execute(() -> {
+                mergeQueued.set(false);
+                merge();
+            });
+        }
+    }
+
+    @Override
+    public void bulkChange() {
+        if (source != null && reloadQueued.compareAndSet(false, true)) {
+            REBUILDS.execute(() -> {
+                reloadQueued.set(false);
+                load(source);
+            });
+        }
+    }
+
+    /**
+     * Folds the pending passengers into a new build: their keys are sorted on their own and then
+     * merged with the already sorted keys, so a merge costs one pass over the index
+     */
+    private synchronized void merge() {
+        Segment base;
+        PassengerRecord[] batch;
+        synchronized (pendingLock) {
+            base = segment;
+            batch = pending.toArray(new PassengerRecord[0]);
+        }
+        Builder builder = new Builder(base, batch.length);
+        for (PassengerRecord passenger : batch) {
+            if (passenger.getPassengerId() > base.lastPassengerId) {
+                builder.add(passenger);
+            }
+        }
+        Segment merged = builder.build(base.keys.length);
+        synchronized (pendingLock) {
+            segment = merged;
+            // Only appends happened meanwhile, so the batch is still at the front
+            pending = new ArrayList<>(pending.subList(batch.length, pending.size()));
+        }
+    }
+
+    private static List<String> keysOf(PassengerRecord passenger) {
+        List<String> keys = new ArrayList<>(4);
+        for (String word : normalize(passenger.getName()).split("\\s+")) {
+            keys.add(word);
+        }
+        keys.add(normalize(passenger.getPassportNumber()));
+        keys.add(normalize(passenger.getEmail()));
+        keys.removeIf(String::isEmpty);
+        return keys;
+    }
+
+    private static String normalize(String value) {
+        // A zero byte ends a key, so it can't be part of one
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT).replace('\0', ' ');
+    }
+
+    /**
+     * Up to {@code limit} passengers matching every word of {@code query}, where a word matches
+     * when it starts a name word, the passport number or the email, ignoring case. Passengers
+     * booked since the last merge come first; the rest come in key order, so an exact name or
+     * passport sorts ahead of longer ones it prefixes.
+     */
+    public List<PassengerRecord> search(String query, int limit) {
+        List<String> words = new ArrayList<>();
+        String driver = "";
+        for (String word : normalize(query).split("\\s+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            words.add(word);
+            // The longest word has the narrowest range to scan
+            if (word.length() > driver.length()) {
+                driver = word;
+            }
+        }
+        List<PassengerRecord> found = new ArrayList<>();
+        if (driver.isEmpty() || limit <= 0) {
+            return found;
+        }
+        Segment built;
+        PassengerRecord[] recent;
+        synchronized (pendingLock) {
+            built = segment;
+            recent = pending.toArray(new PassengerRecord[0]);
+        }
+        for (PassengerRecord passenger : recent) {
+            if (passenger.getPassengerId() > built.lastPassengerId && matchesAll(passenger, words)) {
+                found.add(passenger);
+                if (found.size() >= limit) {
+                    return found;
+                }
+            }
+        }
+
+        BookingStorage db = source;
+        if (db == null) {
+            return found;
+        }
+        byte[] prefix = driver.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> others = new ArrayList<>(words.size());
+        for (String word : words) {
+            if (!word.equals(driver)) {
+                others.add(word.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        // A passenger with two keys in the range is met twice; only the ones kept need remembering
+        Set<Integer> kept = new HashSet<>();
+        for (int i = built.firstKeyFrom(prefix); i < built.keys.length; i++) {
+            int key = built.keys[i];
+            if (comparePrefix(built.text, key, prefix) != 0) {
+                break;
+            }
+            int slot = built.slotOf(key);
+            if (!built.matchesAll(slot, others) || !kept.add(built.ids[slot])) {
+                continue;
+            }
+            PassengerRecord passenger = db.getPassenger(built.ids[slot]);
+            if (passenger != null) {
+                found.add(passenger);
+                if (found.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static boolean matchesAll(PassengerRecord passenger, List<String> words) {
+        for (String word : words) {
+            if (!startsAnyNameWord(passenger.getName(), word)
+                    && !startsWith(passenger.getPassportNumber(), word)
+                    && !startsWith(passenger.getEmail(), word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Compared in place rather than through keysOf, so checking a candidate allocates nothing
+    private static boolean startsAnyNameWord(String name, String word) {
+        if (name == null) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if ((i == 0 || Character.isWhitespace(name.charAt(i - 1)))
+                    && name.regionMatches(true, i, word, 0, word.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(String value, String word) {
+        if (value == null) {
+            return false;
+        }
+        int start = 0;
+        while (start < value.length() && Character.isWhitespace(value.charAt(start))) {
+            start++;
+        }
+        return value.regionMatches(true, start, word, 0, word.length());
+    }
+
+    /**
+     * Negative if the key at {@code key} sorts before every key starting with {@code prefix},
+     * zero if it starts with it, positive if it sorts after
+     */
+    private static int comparePrefix(byte[] text, int key, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            int b = text[key + i] & 0xFF;
+            if (b == END) {
+                return -1; // the key is a shorter prefix of the query
+            }
+            int difference = b - (prefix[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return 0;
+    }
+
+    // Unsigned byte order, with a key that ends first sorting first
+    private static int compareKeys(byte[] text, int a, int b) {
+        while (true) {
+            int x = text[a++] & 0xFF;
+            int y = text[b++] & 0xFF;
+            if (x != y) {
+                return x - y;
+            }
+            if (x == END) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Stable bottom-up merge sort of {@code keys[from, to)} by the keys they point at
+     */
+    private static void sortKeys(byte[] text, int[] keys, int from, int to) {
+        int length = to - from;
+        int[] source = Arrays.copyOfRange(keys, from, to);
+        int[] target = new int[length];
+        for (int width = 1; width < length; width *= 2) {
+            for (int low = 0; low < length; low += 2 * width) {
+                int mid = Math.min(low + width, length);
+                mergeRuns(text, source, target, low, mid, Math.min(low + 2 * width, length));
+            }
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        System.arraycopy(source, 0, keys, from, length);
+    }
+
+    private static void mergeRuns(byte[] text, int[] source, int[] target, int low, int mid, int high) {
+        int left = low;
+        int right = mid;
+        for (int out = low; out < high; out++) {
+            // Ties take the left run first, which keeps earlier passengers first
+            if (right >= high || (left < mid && compareKeys(text, source[left], source[right]) <= 0)) {
+                target[out] = source[left++];
+            } else {
+                target[out] = source[right++];
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (pendingLock) {
+            return segment.ids.length + pending.size();
+        }
+    }
+
+    /**
+     * One immutable build of the index
+     */
+    private static final class Segment {
+        static final Segment EMPTY = new Segment(new byte[0], new int[0], new int[0], new int[0], 0);
+
+        // Every passenger's keys, each followed by END, passenger after passenger
+        final byte[] text;
+        // Offset in text of each passenger's first key, and that passenger's id, by slot
+        final int[] starts;
+        final int[] ids;
+        // Offset in text of every key, sorted by key
+        final int[] keys;
+        final int lastPassengerId;
+
+        Segment(byte[] text, int[] starts, int[] ids, int[] keys, int lastPassengerId) {
+            this.text = text;
+            this.starts = starts;
+            this.ids = ids;
+            this.keys = keys;
+            this.lastPassengerId = lastPassengerId;
+        }
+
+        /**
+         * Position in {@link #keys} of the first key that does not sort before {@code prefix}
+         */
+        int firstKeyFrom(byte[] prefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparePrefix(text, keys[mid], prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Slot of the passenger whose keys include the one at {@code key}
+         */
+        int slotOf(int key) {
+            int slot = Arrays.binarySearch(starts, key);
+            return slot >= 0 ? slot : -slot - 2;
+        }
+
+        boolean matchesAll(int slot, List<byte[]> words) {
+            int end = slot + 1 < starts.length ? starts[slot + 1] : text.length;
+            for (byte[] word : words) {
+                boolean matched = false;
+                for (int key = starts[slot]; key < end && !matched; key++) {
+                    matched = comparePrefix(text, key, word) == 0;
+                    while (text[key] != END) {
+                        key++;
+                    }
+                }
+                if (!matched) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Grows copies of a segment's arrays as passengers are appended, then sorts the new keys
+     */
+    private static final class Builder {
+        private byte[] text;
+        private int textLength;
+        private int[] starts;
+        private int[] ids;
+        private int passengers;
+        private int[] keys;
+        private int keyCount;
+        private int lastPassengerId;
+
+        Builder(Segment base, int expected) {
+            text = Arrays.copyOf(base.text, base.text.length + expected * 48);
+            textLength = base.text.length;
+            starts = Arrays.copyOf(base.starts, base.starts.length + expected);
+            ids = Arrays.copyOf(base.ids, base.ids.length + expected);
+            passengers = base.ids.length;
+            keys = Arrays.copyOf(base.keys, base.keys.length + expected * 4);
+            keyCount = base.keys.length;
+            lastPassengerId = base.lastPassengerId;
+        }
+
+        void add(PassengerRecord passenger) {
+            lastPassengerId = Math.max(lastPassengerId, passenger.getPassengerId());
+            List<String> passengerKeys = keysOf(passenger);
+            // A passenger without keys can never match, and a slot of its own would share its start with the next
+            if (passengerKeys.isEmpty()) {
+                return;
+            }
+            if (passengers == ids.length) {
+                starts = Arrays.copyOf(starts, Math.max(MIN_CAPACITY, passengers * 2));
+                ids = Arrays.copyOf(ids, Math.max(MIN_CAPACITY, passengers * 2));
+            }
+            starts[passengers] = textLength;
+            ids[passengers++] = passenger.getPassengerId();
+            for (String key : passengerKeys) {
+                byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+                if (textLength + bytes.length + 1 > text.length) {
+                    text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + bytes.length + 1));
+                }
+                if (keyCount == keys.length) {
+                    keys = Arrays.copyOf(keys, Math.max(MIN_CAPACITY, keyCount * 2));
+                }
+                keys[keyCount++] = textLength;
+                System.arraycopy(bytes, 0, text, textLength, bytes.length);
+                textLength += bytes.length;
+                text[textLength++] = END;
+            }
+        }
+
+        /**
+         * The finished segment, where {@code keys[0, sorted)} came from the base already in order
+         */
+        Segment build(int sorted) {
+            byte[] finalText = Arrays.copyOf(text, textLength);
+            int[] finalKeys = Arrays.copyOf(keys, keyCount);
+            sortKeys(finalText, finalKeys, sorted, keyCount);
+            if (sorted > 0 && sorted < keyCount) {
+                int[] merged = new int[keyCount];
+                mergeRuns(finalText, finalKeys, merged, 0, sorted, keyCount);
+                finalKeys = merged;
+            }
+            return new Segment(finalText, Arrays.copyOf(starts, passengers), Arrays.copyOf(ids, passengers),
+                    finalKeys, lastPassengerId);
+        }
+    }
+}
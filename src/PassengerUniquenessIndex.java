@@ -0,0 +1,184 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resident pre-screen for passport, contact and email uniqueness: one
+ * {@link CountingBloomFilter} per column, loaded from the passengers table and kept current
+ * from {@link DataChangeListener} events.
+ *
+ * A "no" from the index is final, so most checks for a new passenger never reach SQLite. A
+ * "maybe" has to be confirmed against the database, and the UNIQUE constraints stay the
+ * authority either way: a booking whose event has not been applied yet can be missed here, but
+ * never by the insert.
+ */
+public class PassengerUniquenessIndex implements DataChangeListener {
+    public static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_EXPECTED = 1024;
+    // Rebuilds scan the whole passengers table, so they never run on the thread delivering events
+    private static final ExecutorService REBUILDS =
+            Executors.newSingleThreadExecutor(TaskExecutors.daemonThreads("uniqueness-rebuild"));
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile BookingStorage source;
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private CountingBloomFilter passports;
+    private CountingBloomFilter contacts;
+    private CountingBloomFilter emails;
+    private int lastLoadedPassengerId;
+    private List<PassengerRecord> arrivedDuringLoad;
+
+    /**
+     * Rebuilds the filters from every passenger in {@code db}, sized for twice as many. The scan
+     * runs outside the lock, so checks keep being answered (by the previous filters, or "maybe"
+     * before the first load) while it reads; passengers booked meanwhile are applied at the swap.
+     */
+    public synchronized void load(BookingStorage db) {
+        lock.writeLock().lock();
+        try {
+            source = db;
+            arrivedDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        int expected = Math.max(MIN_EXPECTED, db.countPassengers() * 2);
+        CountingBloomFilter newPassports = new CountingBloomFilter(expected, FALSE_POSITIVE_RATE);
+        CountingBloomFilter newContacts = new CountingBloomFilter(expected, FALSE_POSITIVE_RATE);
+        CountingBloomFilter newEmails = new CountingBloomFilter(expected, FALSE_POSITIVE_RATE);
+        int[] lastId = new int[1];
+        db.forEachPassenger(DatabaseHandler.DEFAULT_FETCH_SIZE, passenger -> {
+            newPassports.add(passenger.getPassportNumber());
+            newContacts.add(passenger.getContactNumber());
+            newEmails.add(passenger.getEmail());
+            lastId[0] = Math.max(lastId[0], passenger.getPassengerId());
+        });
+
+        lock.writeLock().lock();
+        try {
+            passports = newPassports;
+            contacts = newContacts;
+            emails = newEmails;
+            lastLoadedPassengerId = lastId[0];
+            // Passengers up to the last loaded id were already read by the scan
+            for (PassengerRecord passenger : arrivedDuringLoad) {
+                if (passenger.getPassengerId() > lastLoadedPassengerId) {
+                    add(passenger);
+                }
+            }
+            arrivedDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void passengerAdded(PassengerRecord passenger) {
+        boolean full;
+        lock.writeLock().lock();
+        try {
+            if (arrivedDuringLoad != null) {
+                arrivedDuringLoad.add(passenger);
+            }
+            // Passengers up to the last loaded id were already read by load
+            if (passports == null || passenger.getPassengerId() <= lastLoadedPassengerId) {
+                return;
+            }
+            add(passenger);
+            full = passports.isOverCapacity() && arrivedDuringLoad == null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (full) {
+            scheduleRebuild();
+        }
+    }
+
+    /**
+     * Takes a deleted passenger out of the filters
+     */
+    public void passengerRemoved(PassengerRecord passenger) {
+        lock.writeLock().lock();
+        try {
+            if (passports != null) {
+                passports.remove(passenger.getPassportNumber());
+                contacts.remove(passenger.getContactNumber());
+                emails.remove(passenger.getEmail());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bulkChange() {
+        scheduleRebuild();
+    }
+
+    /**
+     * Reloads in the background, with at most one reload queued. Until it swaps in, the current
+     * filters keep answering; a value they miss is still caught by the UNIQUE constraints.
+     */
+    private void scheduleRebuild() {
+        BookingStorage db = source;
+        if (db == null || !rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        REBUILDS.execute(() -> {
+            rebuildQueued.set(false);
+            load(db);
+        });
+    }
+
+    private void add(PassengerRecord passenger) {
+        passports.add(passenger.getPassportNumber());
+        contacts.add(passenger.getContactNumber());
+        emails.add(passenger.getEmail());
+    }
+
+    public boolean mightContainPassport(String passport) {
+        lock.readLock().lock();
+        try {
+            return mightContain(passports, passport);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean mightContainContact(String contact) {
+        lock.readLock().lock();
+        try {
+            return mightContain(contacts, contact);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean mightContainEmail(String email) {
+        lock.readLock().lock();
+        try {
+            return mightContain(emails, email);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean mightContain(CountingBloomFilter filter, String value) {
+        // Not loaded yet: nothing can be ruled out
+        return filter == null || value == null || filter.mightContain(value);
+    }
+
+    /**
+     * Bytes held by the three filters
+     */
+    public long getSizeInBytes() {
+        lock.readLock().lock();
+        try {
+            return passports == null ? 0 : passports.getSizeInBytes() + contacts.getSizeInBytes() + emails.getSizeInBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks the query plan of every SQL statement the booking code runs.
+ *
+ * The audit builds a scratch database with the current schema, runs {@code EXPLAIN QUERY PLAN}
+ * on each {@code *_SQL} constant of the data-access classes and fails if a plan scans a table
+ * that the constant does not declare with {@link ExpectedFullScan}. Statements built at run time
+ * are audited through representative instances from {@link #dynamicStatements()}, which may not
+ * scan anything. Run it after touching SQL or the schema:
+ *
+ * <pre>java -cp .:sqlite-jdbc-3.46.1.3.jar QueryPlanAudit</pre>
+ *
+ * The exit status is 0 when every plan is acceptable and 1 otherwise.
+ */
+public class QueryPlanAudit {
+    static final Class<?>[] AUDITED_CLASSES = {
+        DatabaseHandler.class, SeatReservationEngine.class, SeatInventory.class, PassengerBatchImporter.class
+    };
+
+    /**
+     * One audited statement and what went wrong with its plan, if anything
+     */
+    /**
+     * Statements assembled at run time, at the smallest and largest sizes the code builds
+     */
+    static Map<String, String> dynamicStatements() {
+        int maxSlots = Integer.highestOneBit(PassengerBatchImporter.MAX_CHUNK_SIZE - 1) << 1;
+        Map<String, String> statements = new LinkedHashMap<>();
+        statements.put("PassengerBatchImporter.loadSeats(1)", PassengerBatchImporter.loadSeatsSql(1));
+        statements.put("PassengerBatchImporter.loadSeats(" + maxSlots + ")", PassengerBatchImporter.loadSeatsSql(maxSlots));
+        return statements;
+    }
+
+    public static class Finding {
+        final String name;
+        final String sql;
+        final List<String> plan;
+        final List<String> unexpectedScans;
+
+        Finding(String name, String sql, List<String> plan, List<String> unexpectedScans) {
+            this.name = name;
+            this.sql = sql;
+            this.plan = plan;
+            this.unexpectedScans = unexpectedScans;
+        }
+
+        public boolean isRegression() {
+            return !unexpectedScans.isEmpty();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Class.forName("org.sqlite.JDBC");
+        List<Finding> findings = run();
+        int regressions = 0;
+        for (Finding finding : findings) {
+            System.out.println((finding.isRegression() ? "FAIL " : "ok   ") + finding.name);
+            for (String step : finding.plan) {
+                System.out.println("       " + step);
+            }
+            if (finding.isRegression()) {
+                regressions++;
+                System.out.println("       unexpected full scan of " + finding.unexpectedScans + " in: " + finding.sql);
+            }
+        }
+        System.out.println(findings.size() + " statements audited, " + regressions + " regressed to a full table scan");
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    /**
+     * Audits every statement against a fresh database with the current schema
+     */
+    public static List<Finding> run() throws SQLException, IOException {
+        File dbFile = File.createTempFile("query-plan-audit", ".db");
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath())) {
+            DatabaseHandler.schemaMigrations().migrate(conn);
+            List<Finding> findings = new ArrayList<>();
+            for (Class<?> type : AUDITED_CLASSES) {
+                for (Field field : type.getDeclaredFields()) {
+                    String sql = auditedSql(field);
+                    if (sql != null) {
+                        findings.add(audit(conn, type.getSimpleName() + "." + field.getName(), sql,
+                                field.getAnnotation(ExpectedFullScan.class)));
+                    }
+                }
+            }
+            for (Map.Entry<String, String> statement : dynamicStatements().entrySet()) {
+                findings.add(audit(conn, statement.getKey(), statement.getValue(), null));
+            }
+            return findings;
+        } finally {
+            if (!dbFile.delete()) {
+                dbFile.deleteOnExit();
+            }
+        }
+    }
+
+    private static String auditedSql(Field field) {
+        int modifiers = field.getModifiers();
+        if (!Modifier.isStatic(modifiers) || field.getType() != String.class || !field.getName().endsWith("_SQL")) {
+            return null;
+        }
+        try {
+            field.setAccessible(true);
+            String sql = (String) field.get(null);
+            String verb = sql.trim().split("\\s+", 2)[0].toUpperCase();
+            return Arrays.asList("SELECT", "INSERT", "UPDATE", "DELETE", "WITH").contains(verb) ? sql : null;
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read " + field, e);
+        }
+    }
+
+    private static Finding audit(Connection conn, String name, String sql, ExpectedFullScan expected) throws SQLException {
+        Set<String> allowed = new HashSet<>();
+        if (expected != null) {
+            allowed.addAll(Arrays.asList(expected.value()));
+        }
+
+        List<String> plan = new ArrayList<>();
+        List<String> unexpected = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+            while (rs.next()) {
+                String detail = rs.getString("detail");
+                plan.add(detail);
+                String scanned = scannedName(detail);
+                if (scanned != null && !allowed.contains(scanned)) {
+                    unexpected.add(scanned);
+                }
+            }
+        }
+        return new Finding(name, sql, plan, unexpected);
+    }
+
+    /**
+     * The table or alias a plan step reads in full, or null if the step is not a full scan.
+     * A scan through a covering index still reads every row, so it counts.
+     */
+    static String scannedName(String detail) {
+        if (!detail.startsWith("SCAN ")) {
+            return null;
+        }
+        String target = detail.substring("SCAN ".length());
+        if (target.startsWith("CONSTANT ROW")) {
+            return null;
+        }
+        if (target.startsWith("TABLE ")) {
+            target = target.substring("TABLE ".length()); // older SQLite wording
+        }
+        int end = target.indexOf(' ');
+        return end < 0 ? target : target.substring(0, end);
+    }
+}
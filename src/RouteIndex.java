@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory route search: flights from a source to a destination with at least N free seats.
+ *
+ * Flights are hashed by route, with the source and destination dictionary-encoded into one
+ * {@code long} key. Each route keeps its flights in a set sorted by available seats, so a
+ * search is one hash lookup plus a tail of that set and never touches SQLite. The index is
+ * filled by {@link #load} and then patched by the {@link DataChangeListener} events
+ * {@link DatabaseHandler} publishes after every commit.
+ *
+ * Places are matched ignoring case and surrounding spaces.
+ */
+public class RouteIndex implements DataChangeListener {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final StringDictionary places = new StringDictionary();
+    private final Map<Long, NavigableSet<Long>> routes = new HashMap<>();
+    private final Map<Integer, FlightRecord> flights = new HashMap<>();
+    private BookingStorage source;
+
+    /**
+     * Replaces the contents with every flight in {@code db}
+     */
+    public void load(BookingStorage db) {
+        lock.writeLock().lock();
+        try {
+            source = db;
+            routes.clear();
+            flights.clear();
+            db.forEachFlight(DatabaseHandler.DEFAULT_FETCH_SIZE, this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void flightAdded(FlightRecord flight) {
+        flightChanged(flight);
+    }
+
+    @Override
+    public void flightChanged(FlightRecord flight) {
+        lock.writeLock().lock();
+        try {
+            put(flight);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void bulkChange() {
+        BookingStorage db = source;
+        if (db != null) {
+            load(db);
+        }
+    }
+
+    private void put(FlightRecord flight) {
+        FlightRecord previous = flights.put(flight.getFlightId(), flight);
+        if (previous != null) {
+            NavigableSet<Long> route = routes.get(routeKey(places.encode(normalize(previous.getSource())),
+                    places.encode(normalize(previous.getDestination()))));
+            route.remove(seatKey(previous));
+        }
+        long key = routeKey(places.encode(normalize(flight.getSource())), places.encode(normalize(flight.getDestination())));
+        routes.computeIfAbsent(key, k -> new TreeSet<>()).add(seatKey(flight));
+    }
+
+    /**
+     * Flights from {@code from} to {@code to} with at least {@code minSeats} seats free, most free seats first
+     */
+    public List<FlightRecord> search(String from, String to, int minSeats) {
+        lock.readLock().lock();
+        try {
+            int fromCode = places.codeOf(normalize(from));
+            int toCode = places.codeOf(normalize(to));
+            List<FlightRecord> found = new ArrayList<>();
+            if (fromCode < 0 || toCode < 0) {
+                return found;
+            }
+            NavigableSet<Long> route = routes.get(routeKey(fromCode, toCode));
+            if (route == null) {
+                return found;
+            }
+            for (long entry : route.tailSet(seatKey(Math.max(minSeats, 0), 0), true).descendingSet()) {
+                found.add(flights.get((int) entry));
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getFlightCount() {
+        lock.readLock().lock();
+        try {
+            return flights.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getRouteCount() {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (NavigableSet<Long> route : routes.values()) {
+                if (!route.isEmpty()) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String place) {
+        return place == null ? "" : place.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static long routeKey(int fromCode, int toCode) {
+        return ((long) fromCode << 32) | (toCode & 0xffffffffL);
+    }
+
+    /**
+     * Sorts by available seats, then flight id; the id is the low half so it can be read back
+     */
+    private static long seatKey(int availableSeats, int flightId) {
+        return ((long) availableSeats << 32) | (flightId & 0xffffffffL);
+    }
+
+    private static long seatKey(FlightRecord flight) {
+        return seatKey(flight.getAvailableSeats(), flight.getFlightId());
+    }
+}
@@ -0,0 +1,73 @@
+import java.sql.*;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Versioned schema changes, tracked in SQLite's {@code PRAGMA user_version}.
+ *
+ * Each migration runs in its own transaction together with the bump of user_version, so a
+ * database is always at exactly one version. Databases created before versioning existed report
+ * version 0; migration 1 only uses IF NOT EXISTS statements, so it is safe to run on them.
+ */
+public class SchemaMigrations {
+    /**
+     * One schema change
+     */
+    public interface Migration {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private final TreeMap<Integer, Migration> migrations = new TreeMap<>();
+    private final Map<Integer, String> descriptions = new TreeMap<>();
+
+    public SchemaMigrations add(int version, String description, Migration migration) {
+        if (version < 1 || migrations.containsKey(version)) {
+            throw new IllegalArgumentException("Bad or duplicate migration version " + version);
+        }
+        migrations.put(version, migration);
+        descriptions.put(version, description);
+        return this;
+    }
+
+    public int latestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.lastKey();
+    }
+
+    public static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Applies every migration newer than the database's user_version, in order
+     * @return the number of migrations applied
+     */
+    public int migrate(Connection conn) throws SQLException {
+        int version = currentVersion(conn);
+        if (version >= latestVersion()) {
+            return 0; // current: no DDL and no transaction
+        }
+        int applied = 0;
+        boolean autoCommit = conn.getAutoCommit();
+        try {
+            for (Map.Entry<Integer, Migration> entry : migrations.tailMap(version, false).entrySet()) {
+                conn.setAutoCommit(false);
+                try (Statement stmt = conn.createStatement()) {
+                    entry.getValue().apply(conn);
+                    stmt.execute("PRAGMA user_version = " + entry.getKey());
+                    conn.commit();
+                    applied++;
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw new SQLException("Schema migration " + entry.getKey() + " ("
+                            + descriptions.get(entry.getKey()) + ") failed", e);
+                }
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+        return applied;
+    }
+}
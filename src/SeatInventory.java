@@ -0,0 +1,94 @@
+import java.sql.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resident per-flight seat counters that admit or refuse bookings without a database round trip.
+ *
+ * Each flight has its own {@link AtomicInteger}, so bookings on different flights never contend
+ * and bookings on the same flight only race on a compare-and-set. The passengers table stays the
+ * source of truth: {@link #reconcile(Connection)} rebuilds the counters from it at startup.
+ */
+public class SeatInventory {
+    @ExpectedFullScan(value = "flights", reason = "recounts every flight at startup")
+    private static final String RECONCILE_SQL = "UPDATE flights SET "
+            + "passenger_count = (SELECT COUNT(*) FROM passengers p WHERE p.flightId = flights.flightId), "
+            + "available_seats = capacity - (SELECT COUNT(*) FROM passengers p WHERE p.flightId = flights.flightId)";
+    @ExpectedFullScan(value = "flights", reason = "loads every flight's counter at startup")
+    private static final String LOAD_SQL = "SELECT flightId, available_seats FROM flights";
+
+    private final ConcurrentHashMap<Integer, AtomicInteger> seats = new ConcurrentHashMap<>();
+
+    /**
+     * Recomputes passenger_count and available_seats from the passenger rows actually on disk,
+     * then loads the counters from the corrected values. Any booking admitted in memory but lost
+     * before its write-behind flush is released here, since it never reached the passengers table.
+     */
+    public void reconcile(Connection conn) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(RECONCILE_SQL);
+            seats.clear();
+            try (ResultSet rs = stmt.executeQuery(LOAD_SQL)) {
+                while (rs.next()) {
+                    seats.put(rs.getInt("flightId"), new AtomicInteger(Math.max(0, rs.getInt("available_seats"))));
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Starts tracking a newly created flight
+     */
+    public void register(int flightId, int availableSeats) {
+        seats.put(flightId, new AtomicInteger(availableSeats));
+    }
+
+    public boolean isTracked(int flightId) {
+        return seats.containsKey(flightId);
+    }
+
+    /**
+     * Takes one seat on the flight if any is left
+     */
+    public boolean tryReserve(int flightId) {
+        AtomicInteger counter = seats.get(flightId);
+        if (counter == null) {
+            return false;
+        }
+        while (true) {
+            int current = counter.get();
+            if (current <= 0) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back a seat taken by {@link #tryReserve(int)} whose booking did not persist
+     */
+    public void release(int flightId) {
+        AtomicInteger counter = seats.get(flightId);
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+    }
+
+    /**
+     * Seats currently available in memory, or -1 if the flight is not tracked
+     */
+    public int availableSeats(int flightId) {
+        AtomicInteger counter = seats.get(flightId);
+        return counter == null ? -1 : counter.get();
+    }
+}
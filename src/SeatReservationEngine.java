@@ -0,0 +1,134 @@
+import java.sql.*;
+
+/**
+ * Books passengers with a single conditional seat decrement followed by the passenger insert.
+ *
+ * The seat check and the decrement are one statement, so two writers can never both take the
+ * last seat, and duplicate passports, contacts and emails are detected by the UNIQUE
+ * constraints on the passengers table rather than by SELECTs issued ahead of the insert.
+ */
+public class SeatReservationEngine {
+    static final String RESERVE_SEAT_SQL = "UPDATE flights SET available_seats = available_seats - 1 "
+            + "WHERE flightId = ? AND available_seats > 0";
+    static final String INSERT_PASSENGER_SQL = "INSERT INTO passengers (name, passportNumber, contactNumber, email, flightId) "
+            + "VALUES (?, ?, ?, ?, ?)";
+    private static final String FLIGHT_EXISTS_SQL = "SELECT 1 FROM flights WHERE flightId = ?";
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+
+    private final Metrics metrics;
+
+    public SeatReservationEngine() {
+        this(new Metrics());
+    }
+
+    public SeatReservationEngine(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Reserves a seat and inserts the passenger in one transaction on {@code conn}.
+     * The connection is returned in auto-commit mode whatever the outcome.
+     */
+    public BookingReceipt reserve(Connection conn, String name, String passport, String contact,
+                                  String email, int flightId) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            BookingReceipt result = reserveInTransaction(conn, name, passport, contact, email, flightId);
+            if (result.isBooked()) {
+                conn.commit();
+            } else {
+                conn.rollback();
+                metrics.increment(Metrics.ROLLBACKS);
+            }
+            return result;
+        } catch (SQLException e) {
+            conn.rollback();
+            metrics.increment(Metrics.ROLLBACKS);
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Runs the two booking statements inside a transaction the caller already opened.
+     * On anything but {@link BookingResult#BOOKED} the caller must roll back.
+     */
+    BookingReceipt reserveInTransaction(Connection conn, String name, String passport, String contact,
+                                        String email, int flightId) throws SQLException {
+        try (PreparedStatement reserve = conn.prepareStatement(RESERVE_SEAT_SQL)) {
+            reserve.setInt(1, flightId);
+            if (reserve.executeUpdate() == 0) {
+                return BookingReceipt.refused(flightExists(conn, flightId) ? BookingResult.NO_SEATS : BookingResult.UNKNOWN_FLIGHT);
+            }
+        }
+
+        try (PreparedStatement insert = conn.prepareStatement(INSERT_PASSENGER_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            insert.setString(1, name);
+            insert.setString(2, passport);
+            insert.setString(3, contact);
+            insert.setString(4, email);
+            insert.setInt(5, flightId);
+            insert.executeUpdate();
+            int passengerId = generatedId(insert);
+            return new BookingReceipt(BookingResult.BOOKED,
+                    new PassengerRecord(passengerId, name, passport, contact, email, flightId));
+        } catch (SQLException e) {
+            BookingResult duplicate = duplicateOf(e);
+            if (duplicate == null) {
+                throw e;
+            }
+            return BookingReceipt.refused(duplicate);
+        }
+    }
+
+    static int generatedId(PreparedStatement insert) throws SQLException {
+        try (ResultSet keys = insert.getGeneratedKeys()) {
+            return keys.next() ? keys.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Maps a UNIQUE constraint violation on passengers to its booking result, or null if
+     * {@code e} is some other failure
+     */
+    static BookingResult duplicateOf(SQLException e) {
+        String message = e.getMessage();
+        if (message == null || !message.contains("UNIQUE constraint failed")) {
+            return null;
+        }
+        if (message.contains("passengers.passportNumber")) {
+            return BookingResult.DUPLICATE_PASSPORT;
+        }
+        if (message.contains("passengers.contactNumber")) {
+            return BookingResult.DUPLICATE_CONTACT;
+        }
+        if (message.contains("passengers.email")) {
+            return BookingResult.DUPLICATE_EMAIL;
+        }
+        return null;
+    }
+
+    /**
+     * True if {@code e} means another connection held a lock past the busy timeout, so the
+     * same statement may succeed if tried again
+     */
+    static boolean isBusy(SQLException e) {
+        int primaryCode = e.getErrorCode() & 0xff;
+        if (primaryCode == SQLITE_BUSY || primaryCode == SQLITE_LOCKED) {
+            return true;
+        }
+        String message = e.getMessage();
+        return message != null && (message.contains("SQLITE_BUSY") || message.contains("database is locked"));
+    }
+
+    private boolean flightExists(Connection conn, int flightId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(FLIGHT_EXISTS_SQL)) {
+            stmt.setInt(1, flightId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+}
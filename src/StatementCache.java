@@ -0,0 +1,232 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compiled statements for one pooled connection, reused across calls and keyed by SQL.
+ *
+ * {@link #wrap()} hands out a view of the connection whose {@code prepareStatement} returns a
+ * cached statement. Closing such a statement only clears its parameters and batch so the
+ * existing try-with-resources call sites keep working unchanged; the statement itself stays
+ * compiled until it is evicted as least recently used or the cache is closed. Every
+ * {@code execute*} call is timed into the pool's {@link StatementStats}.
+ *
+ * A connection is only ever leased to one thread at a time, so the cache is not synchronized.
+ */
+public class StatementCache {
+    private final Connection conn;
+    private final StatementStats stats;
+    private final int maxSize;
+    private final LinkedHashMap<Key, PreparedStatement> statements;
+    private long evictions;
+
+    public StatementCache(Connection conn, StatementStats stats, final int maxSize) {
+        this.conn = conn;
+        this.stats = stats;
+        this.maxSize = maxSize;
+        this.statements = new LinkedHashMap<Key, PreparedStatement>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    evictions++;
+                    handlerOf(eldest.getValue()).evict();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * The connection as callers should see it, with statement preparation going through this cache
+     */
+    public Connection wrap() {
+        return (Connection) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new ConnectionHandler());
+    }
+
+    /**
+     * Returns the cached statement for {@code sql}, compiling it on first use
+     */
+    public PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        PreparedStatement cached = statements.get(key);
+        if (cached != null && !handlerOf(cached).inUse) {
+            stats.recordCacheHit(sql);
+            handlerOf(cached).inUse = true;
+            return cached;
+        }
+        PreparedStatement raw = conn.prepareStatement(sql, autoGeneratedKeys);
+        stats.recordPrepare(sql);
+        StatementHandler handler = new StatementHandler(key, raw, stats.entry(sql));
+        PreparedStatement pooled = (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, handler);
+        handler.inUse = true;
+        if (cached == null) {
+            statements.put(key, pooled);
+        } else {
+            // The same SQL is already open further up the call stack; this copy is closed after use
+            handler.evicted = true;
+        }
+        return pooled;
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Closes every cached statement; the connection itself is left open
+     */
+    public void close() {
+        for (PreparedStatement stmt : new ArrayList<>(statements.values())) {
+            handlerOf(stmt).closeRaw();
+        }
+        statements.clear();
+    }
+
+    private static StatementHandler handlerOf(PreparedStatement pooled) {
+        return (StatementHandler) Proxy.getInvocationHandler(pooled);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (args == null) {
+                return StatementCache.invoke(conn, method, null);
+            }
+            if (method.getName().equals("prepareStatement") && args.length == 1) {
+                return prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+            }
+            if (method.getName().equals("prepareStatement") && args.length == 2
+                    && method.getParameterTypes()[1] == int.class) {
+                return prepare((String) args[0], (Integer) args[1]);
+            }
+            return StatementCache.invoke(conn, method, args);
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final Key key;
+        private final PreparedStatement raw;
+        private final StatementStats.Entry entry;
+        private boolean inUse;
+        private boolean evicted;
+
+        StatementHandler(Key key, PreparedStatement raw, StatementStats.Entry entry) {
+            this.key = key;
+            this.raw = raw;
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close")) {
+                release(proxy);
+                return null;
+            }
+            if (name.equals("getConnection")) {
+                return wrap();
+            }
+            if (name.startsWith("execute")) {
+                long start = System.nanoTime();
+                try {
+                    return StatementCache.invoke(raw, method, args);
+                } finally {
+                    stats.recordExecution(entry, System.nanoTime() - start);
+                }
+            }
+            return StatementCache.invoke(raw, method, args);
+        }
+
+        /**
+         * Readies the statement for its next user, dropping it from the cache if that fails
+         */
+        private void release(Object proxy) {
+            if (!inUse) {
+                return;
+            }
+            inUse = false;
+            if (evicted) {
+                closeRaw();
+                return;
+            }
+            try {
+                // An open result set would keep the read transaction, and its WAL snapshot, alive
+                ResultSet open = raw.getResultSet();
+                if (open != null) {
+                    open.close();
+                }
+                raw.clearParameters();
+                raw.clearBatch();
+            } catch (SQLException e) {
+                if (statements.get(key) == proxy) {
+                    statements.remove(key);
+                }
+                closeRaw();
+            }
+        }
+
+        /**
+         * Drops the statement from service, closing it now unless a caller still holds it
+         */
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeRaw();
+            }
+        }
+
+        void closeRaw() {
+            try {
+                raw.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static final class Key {
+        final String sql;
+        final int autoGeneratedKeys;
+
+        Key(String sql, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return autoGeneratedKeys == other.autoGeneratedKeys && sql.equals(other.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return sql.hashCode() * 31 + autoGeneratedKeys;
+        }
+    }
+}
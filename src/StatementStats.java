@@ -0,0 +1,96 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution counts and latency per SQL statement, shared by every connection of a pool.
+ *
+ * Times are wall-clock nanoseconds spent inside {@code execute*} calls. For queries that is the
+ * time to the first row; stepping through the rest of the result set is not included.
+ */
+public class StatementStats {
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Counters for one SQL string
+     */
+    public static class Entry {
+        private final String sql;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder prepares = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+
+        Entry(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() { return sql; }
+        public long getExecutions() { return executions.sum(); }
+        public long getTotalNanos() { return totalNanos.sum(); }
+        public long getMaxNanos() { return maxNanos.get(); }
+        public long getPrepares() { return prepares.sum(); }
+        public long getCacheHits() { return cacheHits.sum(); }
+
+        public double getMeanMicros() {
+            long count = getExecutions();
+            return count == 0 ? 0 : getTotalNanos() / 1000.0 / count;
+        }
+    }
+
+    Entry entry(String sql) {
+        return entries.computeIfAbsent(sql, Entry::new);
+    }
+
+    void recordPrepare(String sql) {
+        entry(sql).prepares.increment();
+    }
+
+    void recordCacheHit(String sql) {
+        entry(sql).cacheHits.increment();
+    }
+
+    void recordExecution(Entry entry, long nanos) {
+        entry.executions.increment();
+        entry.totalNanos.add(nanos);
+        entry.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Every statement seen so far, the one with the most total execution time first
+     */
+    public List<Entry> snapshot() {
+        List<Entry> list = new ArrayList<>(entries.values());
+        list.sort(Comparator.comparingLong(Entry::getTotalNanos).reversed());
+        return list;
+    }
+
+    public void reset() {
+        entries.clear();
+    }
+
+    /**
+     * Plain-text table of the {@code limit} statements with the most total execution time
+     */
+    public String report(int limit) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%10s %12s %10s %10s %8s %8s  %s%n",
+                "execs", "total ms", "mean us", "max us", "prepares", "hits", "sql"));
+        List<Entry> list = snapshot();
+        for (Entry e : list.subList(0, Math.min(limit, list.size()))) {
+            sb.append(String.format("%10d %12.1f %10.1f %10.1f %8d %8d  %s%n",
+                    e.getExecutions(), e.getTotalNanos() / 1e6, e.getMeanMicros(), e.getMaxNanos() / 1e3,
+                    e.getPrepares(), e.getCacheHits(), e.getSql()));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return report(Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,53 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns each distinct string a small int code, so a column of repeated values (airport
+ * names, cities) can be stored as an {@code int[]} and compared by code.
+ *
+ * Codes are dense, start at 0 and never change once given out. Lookups by code are lock-free
+ * reads of an array; encoding a new string is synchronized.
+ */
+public class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private volatile String[] values = new String[16];
+    private volatile int size;
+
+    /**
+     * The code for {@code value}, assigning the next one if it has not been seen before
+     */
+    public synchronized int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        int next = size;
+        if (next == values.length) {
+            values = Arrays.copyOf(values, next * 2);
+        }
+        values[next] = value;
+        codes.put(value, next);
+        size = next + 1;
+        return next;
+    }
+
+    /**
+     * The code for {@code value}, or -1 if it was never encoded
+     */
+    public synchronized int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public String decode(int code) {
+        if (code < 0 || code >= size) {
+            throw new IndexOutOfBoundsException("No string with code " + code);
+        }
+        return values[code];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,35 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executors for blocking database work
+ */
+public final class TaskExecutors {
+    private TaskExecutors() {
+    }
+
+    /**
+     * A virtual-thread-per-task executor on runtimes that have one, otherwise a fixed pool of
+     * {@code fallbackThreads} daemon threads named after {@code name}
+     */
+    public static ExecutorService newBlockingIoExecutor(String name, int fallbackThreads) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(fallbackThreads, daemonThreads(name));
+        }
+    }
+
+    public static ThreadFactory daemonThreads(final String name) {
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
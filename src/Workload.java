@@ -0,0 +1,251 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A booking workload: the starting flights plus one list of operations per agent.
+ *
+ * Workloads are generated from a seed, and each agent draws from its own {@link Random}, so the
+ * same settings always produce the same operations. They can also be saved to a tab-separated
+ * file and loaded back, which lets a run be replayed exactly against another build or
+ * database. Replay repeats every agent's operations in order; how the agents interleave is
+ * still up to the scheduler.
+ */
+public class Workload {
+    private static final String HEADER = "# airport-workload v";
+    // Version 2 added the capacity column; version 1 files carried an ADD_FLIGHT's capacity in flightId.
+    // Version 3 added the page cursor; earlier files paged from (flightId - 1) * PAGE_SIZE.
+    private static final int VERSION = 3;
+    static final int PAGE_SIZE = 50;
+
+    public enum OpType {
+        ADD_FLIGHT, BOOK, DUPLICATE_PASSPORT, LIST_FLIGHTS, LIST_BY_FLIGHT, LIST_PASSENGERS_PAGE
+    }
+
+    /**
+     * One operation issued by an agent. Unused fields are empty strings or 0; only
+     * {@link OpType#ADD_FLIGHT} has a {@code capacity}, only {@link OpType#LIST_PASSENGERS_PAGE}
+     * has an {@code afterPassengerId}, and neither has a {@code flightId}.
+     */
+    public static class Op {
+        final OpType type;
+        final String name;
+        final String passport;
+        final String contact;
+        final String email;
+        final int flightId;
+        final int capacity;
+        final int afterPassengerId;
+
+        Op(OpType type, String name, String passport, String contact, String email, int flightId, int capacity,
+           int afterPassengerId) {
+            this.type = type;
+            this.name = name;
+            this.passport = passport;
+            this.contact = contact;
+            this.email = email;
+            this.flightId = flightId;
+            this.capacity = capacity;
+            this.afterPassengerId = afterPassengerId;
+        }
+
+        public OpType getType() { return type; }
+        public String getName() { return name; }
+        public String getPassport() { return passport; }
+        public String getContact() { return contact; }
+        public String getEmail() { return email; }
+        public int getFlightId() { return flightId; }
+        public int getCapacity() { return capacity; }
+        public int getAfterPassengerId() { return afterPassengerId; }
+    }
+
+    private final int flights;
+    private final int capacity;
+    private final List<List<Op>> agents;
+
+    public Workload(int flights, int capacity, List<List<Op>> agents) {
+        this.flights = flights;
+        this.capacity = capacity;
+        this.agents = agents;
+    }
+
+    /** Flights created before the clock starts, with ids {@code 1..flights} in a fresh database */
+    public int getFlights() { return flights; }
+    public int getCapacity() { return capacity; }
+    public int getAgentCount() { return agents.size(); }
+
+    public List<Op> opsFor(int agent) {
+        return Collections.unmodifiableList(agents.get(agent));
+    }
+
+    public int getOpCount() {
+        int count = 0;
+        for (List<Op> ops : agents) {
+            count += ops.size();
+        }
+        return count;
+    }
+
+    /**
+     * Generates {@code opsPerAgent} operations for each of {@code agentCount} agents.
+     * Operation types are drawn by {@code mix} weight and flights by Zipfian rank over the
+     * starting flights, rank 0 being flight 1. A duplicate-passport attempt reuses the agent's
+     * latest booked passport, so it books normally if that earlier booking was refused. A page of
+     * passengers starts after an id drawn uniformly from the passengers the agents should have
+     * booked by then, assuming they keep pace with each other.
+     */
+    public static Workload generate(long seed, int agentCount, int opsPerAgent, int flights, int capacity,
+                                    double zipfExponent, Map<OpType, Integer> mix) {
+        ZipfianGenerator popularity = new ZipfianGenerator(flights, zipfExponent);
+        int totalWeight = 0;
+        for (int weight : mix.values()) {
+            totalWeight += weight;
+        }
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("The operation mix needs at least one positive weight");
+        }
+
+        List<List<Op>> agents = new ArrayList<>(agentCount);
+        for (int agent = 0; agent < agentCount; agent++) {
+            Random random = new Random(seed * 1_000_003L + agent);
+            List<Op> ops = new ArrayList<>(opsPerAgent);
+            String lastPassport = null;
+            int booked = 0;
+            for (int i = 0; i < opsPerAgent; i++) {
+                OpType type = pick(mix, totalWeight, random);
+                int flightId = 1 + popularity.next(random);
+                if (type == OpType.DUPLICATE_PASSPORT && lastPassport == null) {
+                    type = OpType.BOOK; // nothing to duplicate yet
+                }
+                switch (type) {
+                    case ADD_FLIGHT:
+                        ops.add(new Op(type, "LF" + agent + "-" + i, "", "", "", 0, capacity, 0));
+                        break;
+                    case BOOK: {
+                        String id = agent + "-" + booked++;
+                        lastPassport = "P" + id;
+                        ops.add(new Op(type, "Agent " + id, lastPassport, "C" + id, "a" + id + "@example.com", flightId, 0, 0));
+                        break;
+                    }
+                    case DUPLICATE_PASSPORT: {
+                        String id = agent + "-d" + i;
+                        ops.add(new Op(type, "Agent " + id, lastPassport, "C" + id, "a" + id + "@example.com", flightId, 0, 0));
+                        break;
+                    }
+                    case LIST_PASSENGERS_PAGE: {
+                        int afterPassengerId = random.nextInt(Math.max(1, booked * agentCount));
+                        ops.add(new Op(type, "", "", "", "", 0, 0, afterPassengerId));
+                        break;
+                    }
+                    default:
+                        ops.add(new Op(type, "", "", "", "", flightId, 0, 0));
+                }
+            }
+            agents.add(ops);
+        }
+        return new Workload(flights, capacity, agents);
+    }
+
+    private static OpType pick(Map<OpType, Integer> mix, int totalWeight, Random random) {
+        int roll = random.nextInt(totalWeight);
+        for (Map.Entry<OpType, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    /**
+     * Parses a mix such as {@code book=80,duplicate_passport=5,list_flights=5}; types not named get weight 0
+     */
+    public static Map<OpType, Integer> parseMix(String spec) {
+        Map<OpType, Integer> mix = new EnumMap<>(OpType.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected type=weight, got " + part);
+            }
+            mix.put(OpType.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        return mix;
+    }
+
+    public void save(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(HEADER + VERSION + "\tflights=" + flights + "\tcapacity=" + capacity + "\tagents=" + agents.size());
+            out.newLine();
+            for (int agent = 0; agent < agents.size(); agent++) {
+                for (Op op : agents.get(agent)) {
+                    out.write(agent + "\t" + op.type + "\t" + op.flightId + "\t" + op.capacity + "\t" + op.afterPassengerId
+                            + "\t" + op.name
+                            + "\t" + op.passport + "\t" + op.contact + "\t" + op.email);
+                    out.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a file written by {@link #save}, by this version or by an earlier one
+     */
+    public static Workload load(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = in.readLine();
+            if (header == null || !header.startsWith(HEADER)) {
+                throw new IOException(file + " is not a workload file");
+            }
+            String[] headerFields = header.substring(HEADER.length()).split("\t");
+            int version = Integer.parseInt(headerFields[0].trim());
+            if (version < 1 || version > VERSION) {
+                throw new IOException(file + " is a version " + version + " workload, which this version can't read");
+            }
+            int fields = version == 1 ? 7 : version == 2 ? 8 : 9;
+            Map<String, Integer> settings = new HashMap<>();
+            for (int i = 1; i < headerFields.length; i++) {
+                String[] pair = headerFields[i].split("=");
+                settings.put(pair[0], Integer.parseInt(pair[1]));
+            }
+
+            List<List<Op>> agents = new ArrayList<>();
+            for (int i = 0; i < settings.get("agents"); i++) {
+                agents.add(new ArrayList<>());
+            }
+            String line;
+            int lineNumber = 1;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                String[] f = line.split("\t", -1);
+                if (f.length != fields) {
+                    throw new IOException(file + ":" + lineNumber + ": expected " + fields + " fields, found " + f.length);
+                }
+                OpType type = OpType.valueOf(f[1]);
+                int flightId = Integer.parseInt(f[2]);
+                // Earlier versions paged from the flight id, which replays the same requests
+                int afterPassengerId = type == OpType.LIST_PASSENGERS_PAGE ? (flightId - 1) * PAGE_SIZE : 0;
+                Op op;
+                if (version == 1) {
+                    boolean addFlight = type == OpType.ADD_FLIGHT;
+                    op = new Op(type, f[3], f[4], f[5], f[6], addFlight ? 0 : flightId, addFlight ? flightId : 0, afterPassengerId);
+                } else if (version == 2) {
+                    op = new Op(type, f[4], f[5], f[6], f[7], flightId, Integer.parseInt(f[3]), afterPassengerId);
+                } else {
+                    op = new Op(type, f[5], f[6], f[7], f[8], flightId, Integer.parseInt(f[3]), Integer.parseInt(f[4]));
+                }
+                agents.get(Integer.parseInt(f[0])).add(op);
+            }
+            return new Workload(settings.get("flights"), settings.get("capacity"), agents);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Background thread that persists bookings already admitted by a {@link SeatInventory}.
+ *
+ * Bookings are queued and flushed to the passengers table in batches, one transaction per batch.
+ * Each booking's future completes once its batch has committed, so a caller only sees
+ * {@link BookingResult#BOOKED} for rows that are on disk. A duplicate row is rolled back to its
+ * own savepoint without failing the rest of the batch, and its seat is handed back.
+ */
+public class WriteBehindWriter {
+    private final ConnectionPool pool;
+    private final SeatInventory inventory;
+    private final int batchSize;
+    private final long flushMillis;
+    private final Consumer<List<PassengerRecord>> onCommitted;
+    private final Metrics metrics;
+    private final BlockingQueue<PendingBooking> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    // Held across submit's check of running and its enqueue, so shutdown can't slip in between
+    private final Object submitLock = new Object();
+
+    /**
+     * @param onCommitted told, on the writer thread, which passengers each committed batch stored
+     */
+    public WriteBehindWriter(ConnectionPool pool, SeatInventory inventory, int batchSize, long flushMillis,
+                             Consumer<List<PassengerRecord>> onCommitted) {
+        this(pool, inventory, batchSize, flushMillis, onCommitted, new Metrics());
+    }
+
+    public WriteBehindWriter(ConnectionPool pool, SeatInventory inventory, int batchSize, long flushMillis,
+                             Consumer<List<PassengerRecord>> onCommitted, Metrics metrics) {
+        this.pool = pool;
+        this.onCommitted = onCommitted;
+        this.metrics = metrics;
+        this.inventory = inventory;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushMillis = Math.max(1, flushMillis);
+        this.thread = new Thread(this::run, "booking-write-behind");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Queues a booking whose seat has already been reserved in the inventory
+     */
+    public CompletableFuture<BookingResult> submit(BookingRequest request) {
+        PendingBooking pending = new PendingBooking(request);
+        synchronized (submitLock) {
+            if (running) {
+                queue.add(pending);
+                return pending.result;
+            }
+        }
+        inventory.release(request.getFlightId());
+        pending.result.complete(BookingResult.ERROR);
+        return pending.result;
+    }
+
+    /**
+     * Stops accepting bookings, flushes everything still queued and waits for the thread to exit
+     */
+    public void shutdown() {
+        synchronized (submitLock) {
+            running = false;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PendingBooking straggler;
+        while ((straggler = queue.poll()) != null) {
+            inventory.release(straggler.request.getFlightId());
+            straggler.result.complete(BookingResult.ERROR);
+        }
+    }
+
+    private void run() {
+        List<PendingBooking> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingBooking first = queue.poll(flushMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingBooking> batch) {
+        List<BookingReceipt> results = new ArrayList<>(batch.size());
+        long started = System.nanoTime();
+        try (ConnectionPool.Lease lease = pool.write()) {
+            Connection conn = lease.connection();
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(SeatReservationEngine.INSERT_PASSENGER_SQL,
+                    Statement.RETURN_GENERATED_KEYS)) {
+                for (PendingBooking pending : batch) {
+                    results.add(insert(conn, insert, pending.request));
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                metrics.increment(Metrics.ROLLBACKS);
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            metrics.failed("writeBehind.flush", e);
+            results.clear();
+            for (int i = 0; i < batch.size(); i++) {
+                results.add(BookingReceipt.refused(BookingResult.ERROR));
+            }
+        }
+        metrics.recordSince("writeBehind.flush", started);
+
+        List<PassengerRecord> stored = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            BookingReceipt receipt = results.get(i);
+            if (receipt.isBooked()) {
+                stored.add(receipt.getPassenger());
+            } else {
+                inventory.release(batch.get(i).request.getFlightId());
+            }
+        }
+        if (!stored.isEmpty()) {
+            onCommitted.accept(stored);
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result.complete(results.get(i).getResult());
+        }
+    }
+
+    private BookingReceipt insert(Connection conn, PreparedStatement insert, BookingRequest request) throws SQLException {
+        Savepoint savepoint = conn.setSavepoint();
+        try {
+            insert.setString(1, request.getName());
+            insert.setString(2, request.getPassportNumber());
+            insert.setString(3, request.getContactNumber());
+            insert.setString(4, request.getEmail());
+            insert.setInt(5, request.getFlightId());
+            insert.executeUpdate();
+            int passengerId = SeatReservationEngine.generatedId(insert);
+            conn.releaseSavepoint(savepoint);
+            return new BookingReceipt(BookingResult.BOOKED, new PassengerRecord(passengerId, request.getName(),
+                    request.getPassportNumber(), request.getContactNumber(), request.getEmail(), request.getFlightId()));
+        } catch (SQLException e) {
+            BookingResult duplicate = SeatReservationEngine.duplicateOf(e);
+            if (duplicate == null) {
+                throw e;
+            }
+            conn.rollback(savepoint);
+            conn.releaseSavepoint(savepoint);
+            metrics.increment(Metrics.SAVEPOINT_ROLLBACKS);
+            return BookingReceipt.refused(duplicate);
+        }
+    }
+
+    private static class PendingBooking {
+        private final BookingRequest request;
+        private final CompletableFuture<BookingResult> result = new CompletableFuture<>();
+
+        private PendingBooking(BookingRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws ranks {@code 0..n-1} with Zipfian skew: rank k is chosen with probability proportional
+ * to {@code 1 / (k + 1)^exponent}, so rank 0 is the most popular.
+ *
+ * The cumulative distribution is computed once and each draw is a binary search, which is fast
+ * enough for the few hundred thousand items a load test uses. The generator holds no random
+ * state of its own; callers pass their own {@link Random} so each agent stays reproducible.
+ */
+public class ZipfianGenerator {
+    private final double[] cumulative;
+    private final double exponent;
+
+    public ZipfianGenerator(int n, double exponent) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be at least 1");
+        }
+        if (exponent < 0) {
+            throw new IllegalArgumentException("exponent must not be negative");
+        }
+        this.exponent = exponent;
+        this.cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    /**
+     * Next rank in {@code 0..size()-1}
+     */
+    public int next(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+
+    public int size() {
+        return cumulative.length;
+    }
+
+    public double getExponent() {
+        return exponent;
+    }
+
+    /**
+     * Probability of drawing {@code rank}
+     */
+    public double probability(int rank) {
+        return rank == 0 ? cumulative[0] : cumulative[rank] - cumulative[rank - 1];
+    }
+}